@@ -0,0 +1,38 @@
+package editortrees.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Append-only growth, the way a log or a file being read in grows: single
+// characters and buffers added at the end.
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppendBenchmark {
+
+	private static final char[] BUFFER = DocumentState.text(4096, new java.util.Random(3)).toCharArray();
+
+	@Benchmark
+	public void add(DocumentState doc, RotationCounter counter) {
+		doc.tree.add('x');
+		counter.count(doc.tree);
+		doc.trim();
+	}
+
+	@Benchmark
+	public void append(DocumentState doc, RotationCounter counter) {
+		doc.tree.append(BUFFER, 0, BUFFER.length);
+		counter.count(doc.tree);
+		doc.trim();
+	}
+}
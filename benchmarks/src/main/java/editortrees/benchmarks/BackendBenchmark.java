@@ -0,0 +1,102 @@
+package editortrees.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import editortrees.EditSequence;
+import editortrees.EditSequences;
+
+// The same workloads on each EditSequence backend, to see which one suits a
+// kind of document: appending as to a log, typing at a caret and pasting as in
+// a source file, and reading.
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BackendBenchmark {
+
+	private static final String PASTE = DocumentState.text(1000, new Random(13));
+
+	@State(Scope.Thread)
+	public static class Document {
+
+		@Param({"AVL_TREE", "TREAP", "PIECE_TABLE"})
+		public EditSequences.Backend backend;
+
+		@Param({"1000", "100000", "10000000"})
+		public int size;
+
+		public String text;
+		public EditSequence sequence;
+		public Random random;
+		public int caret;
+
+		@Setup(Level.Trial)
+		public void makeText() {
+			this.text = DocumentState.text(this.size, new Random(42));
+		}
+
+		@Setup(Level.Iteration)
+		public void makeSequence() {
+			this.sequence = EditSequences.create(this.backend, this.text);
+			this.random = new Random(7);
+			this.caret = this.size / 2;
+		}
+
+		/**
+		 * Cuts the sequence back to its original size once it has grown by a
+		 * million characters.
+		 */
+		public void trim() {
+			if (this.sequence.size() > this.size + (1 << 20)) {
+				this.sequence.split(this.size);
+				this.caret = Math.min(this.caret, this.size);
+			}
+		}
+	}
+
+	@Benchmark
+	public void append(Document doc) {
+		doc.sequence.add('x');
+		doc.trim();
+	}
+
+	@Benchmark
+	public void type(Document doc) {
+		doc.sequence.add('x', doc.caret++);
+		doc.trim();
+	}
+
+	@Benchmark
+	public void addAtRandom(Document doc) {
+		doc.sequence.add('x', doc.random.nextInt(doc.sequence.size() + 1));
+		doc.trim();
+	}
+
+	@Benchmark
+	public EditSequence pasteAndCut(Document doc) {
+		int pos = doc.random.nextInt(doc.sequence.size() + 1);
+		doc.sequence.add(PASTE, pos);
+		return doc.sequence.delete(pos, PASTE.length());
+	}
+
+	@Benchmark
+	public char get(Document doc) {
+		return doc.sequence.get(doc.random.nextInt(doc.sequence.size()));
+	}
+}
@@ -0,0 +1,94 @@
+package editortrees.benchmarks;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import editortrees.EditTree;
+
+// A document of size characters for a benchmark to work on, rebuilt before
+// every iteration. Sizes up to 100M can be run with -p size=100000000, best
+// with -p chunkSize=256 and a heap to match.
+
+@State(Scope.Thread)
+public class DocumentState {
+
+	// how far a benchmark that adds characters may grow the document before
+	// it is cut back
+	private static final int GROWTH = 1 << 20;
+
+	@Param({"1000", "100000", "10000000"})
+	public int size;
+
+	@Param({"1", "256"})
+	public int chunkSize;
+
+	public String text;
+	public EditTree tree;
+	public Random random;
+	public int caret; // where typing goes on
+
+	@Setup(Level.Trial)
+	public void makeText() {
+		this.text = DocumentState.text(this.size, new Random(42));
+	}
+
+	@Setup(Level.Iteration)
+	public void makeTree() {
+		this.tree = new EditTree(this.text, this.chunkSize);
+		this.random = new Random(7);
+		this.caret = this.size / 2;
+	}
+
+	/**
+	 *
+	 * @return a position chosen uniformly from the document
+	 */
+	public int randomPosition() {
+		return this.random.nextInt(this.tree.size());
+	}
+
+	/**
+	 * Cuts the document back to its original size once a benchmark has grown
+	 * it by GROWTH characters, in one split.
+	 */
+	public void trim() {
+		if (this.tree.size() > this.size + GROWTH) {
+			this.tree.split(this.size);
+			this.caret = Math.min(this.caret, this.size);
+		}
+	}
+
+	/**
+	 * Makes text that looks like source code or prose: lowercase words of up
+	 * to eight letters, with a line break about every 60 characters.
+	 *
+	 * @param length
+	 * @param random
+	 * @return the text
+	 */
+	public static String text(int length, Random random) {
+		StringBuilder text = new StringBuilder(length);
+		int column = 0;
+		while (text.length() < length) {
+			if (column > 60) {
+				text.append('\n');
+				column = 0;
+				continue;
+			}
+			int word = 1 + random.nextInt(8);
+			for (int i = 0; i < word && text.length() < length; i++) {
+				text.append((char) ('a' + random.nextInt(26)));
+			}
+			if (text.length() < length) {
+				text.append(' ');
+			}
+			column += word + 1;
+		}
+		return text.toString();
+	}
+}
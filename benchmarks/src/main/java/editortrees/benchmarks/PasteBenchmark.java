@@ -0,0 +1,77 @@
+package editortrees.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import editortrees.Edit;
+import editortrees.EditTree;
+
+// Large pastes and cuts at random positions, and the split and concatenate
+// they are made of. Each benchmark leaves the document as long as it found it.
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PasteBenchmark {
+
+	@State(Scope.Thread)
+	public static class Clipboard {
+
+		@Param({"1000", "100000"})
+		public int pasteSize;
+
+		public String text;
+		public List<Edit> edits;
+
+		@Setup
+		public void fill(DocumentState doc) {
+			Random random = new Random(11);
+			this.text = DocumentState.text(this.pasteSize, random);
+			// a search and replace: a hundred three-letter words replaced
+			// with others, in order, so the length does not change
+			this.edits = new ArrayList<Edit>();
+			int step = Math.max(4, doc.size / 100);
+			for (int pos = 0; pos + 3 <= doc.size && this.edits.size() < 100; pos += step) {
+				this.edits.add(new Edit(pos, 3, DocumentState.text(3, random)));
+			}
+		}
+	}
+
+	@Benchmark
+	public EditTree pasteAndCut(DocumentState doc, Clipboard clipboard, RotationCounter counter) {
+		int pos = doc.random.nextInt(doc.tree.size() + 1);
+		doc.tree.add(clipboard.text, pos);
+		EditTree cut = doc.tree.delete(pos, clipboard.text.length());
+		counter.count(doc.tree);
+		return cut;
+	}
+
+	@Benchmark
+	public void splitAndConcatenate(DocumentState doc, RotationCounter counter) {
+		EditTree rest = doc.tree.split(doc.random.nextInt(doc.tree.size() + 1));
+		doc.tree.concatenate(rest);
+		counter.count(doc.tree);
+	}
+
+	@Benchmark
+	public void applyEdits(DocumentState doc, Clipboard clipboard, RotationCounter counter) {
+		doc.tree.applyEdits(clipboard.edits);
+		counter.count(doc.tree);
+	}
+}
@@ -0,0 +1,64 @@
+package editortrees.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Reads and edits at positions chosen uniformly from the document, the worst
+// case for any locality in the tree.
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomAccessBenchmark {
+
+	private static final int RANGE = 64;
+
+	@Benchmark
+	public char get(DocumentState doc) {
+		return doc.tree.get(doc.randomPosition());
+	}
+
+	@Benchmark
+	public String getRange(DocumentState doc) {
+		int pos = doc.random.nextInt(Math.max(1, doc.tree.size() - RANGE));
+		return doc.tree.get(pos, Math.min(RANGE, doc.tree.size() - pos));
+	}
+
+	@Benchmark
+	public void add(DocumentState doc, RotationCounter counter) {
+		doc.tree.add('x', doc.randomPosition());
+		counter.count(doc.tree);
+		doc.trim();
+	}
+
+	@Benchmark
+	public void deleteAndAdd(DocumentState doc, RotationCounter counter) {
+		int pos = doc.randomPosition();
+		doc.tree.add(doc.tree.delete(pos), pos);
+		counter.count(doc.tree);
+	}
+
+	@Benchmark
+	public int lineOf(DocumentState doc) {
+		return doc.tree.lineOf(doc.randomPosition());
+	}
+
+	@Benchmark
+	public int lineStart(DocumentState doc) {
+		return doc.tree.lineStart(doc.random.nextInt(doc.tree.lineCount()));
+	}
+
+	@Benchmark
+	public String getLine(DocumentState doc) {
+		return doc.tree.getLine(doc.random.nextInt(doc.tree.lineCount()));
+	}
+}
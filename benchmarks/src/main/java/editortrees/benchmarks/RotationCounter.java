@@ -0,0 +1,45 @@
+package editortrees.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import editortrees.EditTree;
+
+// Rotations made by the operations a benchmark measures, reported by JMH next
+// to the score as a rate. Dividing it by the score gives the rotations per
+// operation.
+
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class RotationCounter {
+
+	public long rotations;
+
+	private EditTree tree;
+	private int start;
+
+	@Setup(Level.Iteration)
+	public void reset() {
+		this.rotations = 0;
+		this.tree = null;
+	}
+
+	/**
+	 * Counts the rotations tree has made since the last call, or since the
+	 * iteration began.
+	 *
+	 * @param tree
+	 */
+	public void count(EditTree tree) {
+		if (tree != this.tree) {
+			this.tree = tree;
+			this.start = tree.totalRotationCount();
+			return;
+		}
+		this.rotations += tree.totalRotationCount() - this.start;
+		this.start = tree.totalRotationCount();
+	}
+}
@@ -0,0 +1,59 @@
+package editortrees.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import editortrees.Cursor;
+
+// Reading a window of consecutive characters from a random position, the way
+// a highlighter or spell checker does: by get, which descends from the root
+// for every character, by charAt and by a Cursor. Scores are per character.
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(SequentialReadBenchmark.WINDOW)
+public class SequentialReadBenchmark {
+
+	static final int WINDOW = 256;
+
+	@Benchmark
+	public int get(DocumentState doc) {
+		int pos = doc.random.nextInt(doc.tree.size() - WINDOW);
+		int hash = 0;
+		for (int i = pos; i < pos + WINDOW; i++) {
+			hash = 31 * hash + doc.tree.get(i);
+		}
+		return hash;
+	}
+
+	@Benchmark
+	public int charAt(DocumentState doc) {
+		int pos = doc.random.nextInt(doc.tree.size() - WINDOW);
+		int hash = 0;
+		for (int i = pos; i < pos + WINDOW; i++) {
+			hash = 31 * hash + doc.tree.charAt(i);
+		}
+		return hash;
+	}
+
+	@Benchmark
+	public int cursor(DocumentState doc) {
+		Cursor cursor = doc.tree.cursor(doc.random.nextInt(doc.tree.size() - WINDOW));
+		int hash = 0;
+		for (int i = 0; i < WINDOW; i++) {
+			hash = 31 * hash + cursor.next();
+		}
+		return hash;
+	}
+}
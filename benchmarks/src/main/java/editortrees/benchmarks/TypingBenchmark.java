@@ -0,0 +1,92 @@
+package editortrees.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Sequential typing: characters added one after another at a caret in the
+// middle of the document, with backspaces and undo, and the same with gap
+// leaves, which only chunked trees have.
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypingBenchmark {
+
+	@State(Scope.Thread)
+	public static class History {
+
+		@Setup(Level.Iteration)
+		public void turnOn(DocumentState doc) {
+			doc.tree.setHistoryLimit(1 << 20);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class GapLeaves {
+
+		@Setup(Level.Iteration)
+		public void turnOn(DocumentState doc) {
+			if (doc.chunkSize > 1) {
+				doc.tree.setGapLeaves(true);
+			}
+		}
+	}
+
+	@Benchmark
+	public void type(DocumentState doc, RotationCounter counter) {
+		doc.tree.add((char) ('a' + (doc.caret & 15)), doc.caret++);
+		counter.count(doc.tree);
+		doc.trim();
+	}
+
+	@Benchmark
+	public char typeAndBackspace(DocumentState doc, RotationCounter counter) {
+		doc.tree.add('x', doc.caret);
+		char c = doc.tree.delete(doc.caret);
+		counter.count(doc.tree);
+		return c;
+	}
+
+	@Benchmark
+	public void typeWithHistory(DocumentState doc, History history, RotationCounter counter) {
+		doc.tree.add((char) ('a' + (doc.caret & 15)), doc.caret++);
+		counter.count(doc.tree);
+		doc.trim();
+	}
+
+	@Benchmark
+	public boolean typeAndUndo(DocumentState doc, History history, RotationCounter counter) {
+		doc.tree.add('x', doc.caret);
+		boolean undone = doc.tree.undo();
+		counter.count(doc.tree);
+		return undone;
+	}
+
+	@Benchmark
+	public void typeWithGapLeaves(DocumentState doc, GapLeaves gap, RotationCounter counter) {
+		doc.tree.add((char) ('a' + (doc.caret & 15)), doc.caret++);
+		counter.count(doc.tree);
+		doc.trim();
+	}
+
+	@Benchmark
+	public char typeAndBackspaceWithGapLeaves(DocumentState doc, GapLeaves gap, RotationCounter counter) {
+		doc.tree.add('x', doc.caret);
+		char c = doc.tree.delete(doc.caret);
+		counter.count(doc.tree);
+		return c;
+	}
+}
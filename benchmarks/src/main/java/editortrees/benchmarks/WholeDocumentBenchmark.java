@@ -0,0 +1,52 @@
+package editortrees.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import editortrees.EditTree;
+
+// Operations that touch the whole document: building, copying, writing it out
+// and searching it from end to end.
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WholeDocumentBenchmark {
+
+	@Benchmark
+	public EditTree build(DocumentState doc) {
+		return new EditTree(doc.text, doc.chunkSize);
+	}
+
+	@Benchmark
+	public EditTree copy(DocumentState doc) {
+		return new EditTree(doc.tree);
+	}
+
+	@Benchmark
+	public String toString(DocumentState doc) {
+		return doc.tree.toString();
+	}
+
+	@Benchmark
+	public int find(DocumentState doc) {
+		// the text has no capitals, so this reads all of it
+		return doc.tree.find("Missing");
+	}
+
+	@Benchmark
+	public void writeTo(DocumentState doc) throws IOException {
+		doc.tree.writeTo(OutputStream.nullOutputStream());
+	}
+}
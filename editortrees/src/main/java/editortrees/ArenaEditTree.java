@@ -0,0 +1,953 @@
+package editortrees;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+
+// A height-balanced binary tree with rank with the same operations as EditTree,
+// but whose nodes live in the primitive arrays of a NodeArena rather than in
+// Node objects. Links are slot numbers and slot 0 stands in for NULL_NODE, so a
+// node costs a few dozen bytes, the garbage collector has no per-node objects
+// to trace, and descents read neighboring array entries instead of chasing
+// references. Every node holds one character.
+
+public class ArenaEditTree {
+
+	private final NodeArena arena;
+	private int root;
+	private int numOfRotations;
+
+	/**
+	 * Construct an empty tree
+	 */
+	public ArenaEditTree() {
+		this(new NodeArena(16), 0);
+	}
+
+	/**
+	 * Construct a single-node tree whose element is c
+	 *
+	 * @param c
+	 */
+	public ArenaEditTree(char c) {
+		this();
+		this.root = this.arena.allocate(c);
+	}
+
+	/**
+	 * Create a tree whose toString is s, in O(N) time.
+	 *
+	 * @param s
+	 */
+	public ArenaEditTree(String s) {
+		this(new NodeArena(s.length() + 1), 0);
+		if (s.length() > 0) {
+			this.root = this.buildTree(s, 0, s.length(), 0);
+		}
+	}
+
+	/**
+	 * Make this tree be a copy of e, in a new arena, with the same shape and
+	 * contents.
+	 *
+	 * @param e
+	 */
+	public ArenaEditTree(ArenaEditTree e) {
+		this(new NodeArena(e.size() + 1), 0);
+		this.root = this.copyTree(e.arena, e.root, 0);
+	}
+
+	private ArenaEditTree(NodeArena arena, int root) {
+		this.arena = arena;
+		this.root = root;
+		this.numOfRotations = 0;
+	}
+
+	/**
+	 * Recursively creates a balanced tree holding the characters of s from
+	 * index from (inclusive) to to (exclusive), then returns its root.
+	 */
+	private int buildTree(String s, int from, int to, int parent) {
+		NodeArena a = this.arena;
+		int mid = from + (to - from) / 2;
+		int node = a.allocate(s.charAt(mid));
+		a.parent[node] = parent;
+		a.rank[node] = mid - from;
+		a.size[node] = to - from;
+		if (mid > from) {
+			int left = this.buildTree(s, from, mid, node);
+			a.left[node] = left;
+		}
+		if (to > mid + 1) {
+			int right = this.buildTree(s, mid + 1, to, node);
+			a.right[node] = right;
+		}
+		this.updateBalance(node);
+		return node;
+	}
+
+	/**
+	 * Recursively copies the subtree of source rooted at node into this tree's
+	 * arena, then returns the root of the copy.
+	 */
+	private int copyTree(NodeArena source, int node, int parent) {
+		if (node == 0) {
+			return 0;
+		}
+		NodeArena a = this.arena;
+		int copy = a.allocate(source.element[node]);
+		a.parent[copy] = parent;
+		a.rank[copy] = source.rank[node];
+		a.size[copy] = source.size[node];
+		a.balance[copy] = source.balance[node];
+		a.height[copy] = source.height[node];
+		// the recursive calls may grow the arena's arrays, so they run first
+		int left = this.copyTree(source, source.left[node], copy);
+		int right = this.copyTree(source, source.right[node], copy);
+		a.left[copy] = left;
+		a.right[copy] = right;
+		return copy;
+	}
+
+	/**
+	 * Puts every slot of the subtree rooted at node on its arena's free list.
+	 */
+	private void releaseTree(int node) {
+		if (node == 0) {
+			return;
+		}
+		this.releaseTree(this.arena.left[node]);
+		this.releaseTree(this.arena.right[node]);
+		this.arena.release(node);
+	}
+
+	/**
+	 *
+	 * @return the height of this tree
+	 */
+	public int height() {
+		return this.arena.height[this.root];
+	}
+
+	/**
+	 *
+	 * returns the total number of rotations done in this tree
+	 * since it was created.  A double rotation counts as two.
+	 *
+	 * @return number of rotations since tree was created.
+	 */
+	public int totalRotationCount() {
+		return this.numOfRotations;
+	}
+
+	/**
+	 *
+	 * @return the number of nodes in this tree
+	 */
+	public int size() {
+		return this.arena.size[this.root];
+	}
+
+	/**
+	 * return the string produced by an inorder traversal of this tree
+	 */
+	@Override
+	public String toString() {
+		char[] chars = new char[this.size()];
+		this.copyChars(0, chars.length, chars, 0);
+		return new String(chars);
+	}
+
+	/**
+	 * Copies characters from this tree into dst, in the manner of
+	 * String.getChars.
+	 *
+	 * @param srcBegin
+	 *            position of the first character to copy
+	 * @param srcEnd
+	 *            position after the last character to copy
+	 * @param dst
+	 *            the destination array
+	 * @param dstBegin
+	 *            the start offset in dst
+	 * @throws IndexOutOfBoundsException
+	 *             if either range is out of bounds
+	 */
+	public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) throws IndexOutOfBoundsException {
+		if (srcBegin < 0 || srcBegin > srcEnd || srcEnd > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (dstBegin < 0 || dstBegin + (srcEnd - srcBegin) > dst.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		this.copyChars(srcBegin, srcEnd - srcBegin, dst, dstBegin);
+	}
+
+	/**
+	 * Appends the contents of this tree to out, without building the whole
+	 * string.
+	 *
+	 * @param out
+	 * @throws IOException
+	 *             if out throws one
+	 */
+	public void appendTo(Appendable out) throws IOException {
+		char[] buffer = new char[Math.min(this.size(), 8192)];
+		CharBuffer view = CharBuffer.wrap(buffer);
+		for (int pos = 0; pos < this.size(); pos += buffer.length) {
+			int n = Math.min(buffer.length, this.size() - pos);
+			this.copyChars(pos, n, buffer, 0);
+			out.append(view, 0, n);
+		}
+	}
+
+	/**
+	 *
+	 * @param pos
+	 *            position in the tree
+	 * @return the character at that position
+	 * @throws IndexOutOfBoundsException
+	 */
+	public char get(int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos >= this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		return this.arena.element[this.nodeAt(pos)];
+	}
+
+	/**
+	 * Runs in O(length + log N).
+	 *
+	 * @param pos
+	 *            location of the beginning of the string to retrieve
+	 * @param length
+	 *            length of the string to retrieve
+	 * @return string of length that starts in position pos
+	 * @throws IndexOutOfBoundsException
+	 *             unless both pos and pos+length-1 are legitimate indexes
+	 *             within this tree.
+	 */
+	public String get(int pos, int length) throws IndexOutOfBoundsException {
+		if (pos < 0 || length < 0 || pos + length > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		char[] result = new char[length];
+		this.copyChars(pos, length, result, 0);
+		return new String(result);
+	}
+
+	/**
+	 *
+	 * @return the slot of the node at position pos, which must be in range
+	 */
+	private int nodeAt(int pos) {
+		NodeArena a = this.arena;
+		int current = this.root;
+		while (pos != a.rank[current]) {
+			if (pos < a.rank[current]) {
+				current = a.left[current];
+			}
+			else {
+				pos -= a.rank[current] + 1;
+				current = a.right[current];
+			}
+		}
+		return current;
+	}
+
+	private void copyChars(int pos, int length, char[] dst, int dstBegin) {
+		if (length == 0) {
+			return;
+		}
+		int current = this.nodeAt(pos);
+		for (int i = 0; i < length; i++) {
+			dst[dstBegin + i] = this.arena.element[current];
+			current = this.successor(current);
+		}
+	}
+
+	private int successor(int node) {
+		NodeArena a = this.arena;
+		if (a.right[node] != 0) {
+			return this.leftmost(a.right[node]);
+		}
+		while (a.parent[node] != 0 && a.right[a.parent[node]] == node) {
+			node = a.parent[node];
+		}
+		return a.parent[node];
+	}
+
+	private int leftmost(int node) {
+		while (this.arena.left[node] != 0) {
+			node = this.arena.left[node];
+		}
+		return node;
+	}
+
+	private int rightmost(int node) {
+		while (this.arena.right[node] != 0) {
+			node = this.arena.right[node];
+		}
+		return node;
+	}
+
+	/**
+	 *
+	 * @param c
+	 *            character to add to the end of this tree.
+	 */
+	public void add(char c) {
+		this.add(c, this.size());
+	}
+
+	/**
+	 *
+	 * @param c
+	 *            character to add
+	 * @param pos
+	 *            character added in this inorder position
+	 * @throws IndexOutOfBoundsException
+	 *             id pos is negative or too large for this tree
+	 */
+	public void add(char c, int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		NodeArena a = this.arena;
+		int fresh = a.allocate(c);
+		if (this.root == 0) {
+			this.root = fresh;
+		}
+		else if (pos == this.size()) {
+			this.attach(this.rightmost(this.root), false, fresh);
+		}
+		else {
+			int current = this.nodeAt(pos);
+			if (a.left[current] == 0) {
+				this.attach(current, true, fresh);
+			}
+			else {
+				this.attach(this.rightmost(a.left[current]), false, fresh);
+			}
+		}
+	}
+
+	/**
+	 * Inserts all of s so that its first character ends up at position pos, in
+	 * O(k + log N) where k is the length of s.
+	 *
+	 * @param s
+	 *            characters to add
+	 * @param pos
+	 *            position of the first added character
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is negative or too large for this tree
+	 */
+	public void add(CharSequence s, int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (s.length() == 0) {
+			return;
+		}
+		// the halves and the new run all stay in this arena, so both joins are
+		// in place
+		int[] halves = this.split(this.root, pos);
+		this.root = halves[0];
+		int inserted = this.buildTree(s.toString(), 0, s.length(), 0);
+		this.concatenate(new ArenaEditTree(this.arena, inserted));
+		this.concatenate(new ArenaEditTree(this.arena, halves[1]));
+	}
+
+	private void attach(int parent, boolean asLeft, int fresh) {
+		NodeArena a = this.arena;
+		if (asLeft) {
+			a.left[parent] = fresh;
+		}
+		else {
+			a.right[parent] = fresh;
+		}
+		a.parent[fresh] = parent;
+		this.adjustAncestors(fresh, a.size[fresh]);
+		this.rebalanceAfterInsert(fresh);
+		this.resetRoot();
+	}
+
+	/**
+	 * Adds delta to the size of every ancestor of node, and to the rank of
+	 * those that have node in their left subtree.
+	 */
+	private void adjustAncestors(int node, int delta) {
+		NodeArena a = this.arena;
+		int child = node;
+		int parent = a.parent[node];
+		while (parent != 0) {
+			a.size[parent] += delta;
+			if (a.left[parent] == child) {
+				a.rank[parent] += delta;
+			}
+			child = parent;
+			parent = a.parent[parent];
+		}
+	}
+
+	private void resetRoot() {
+		while (this.root != 0 && this.arena.parent[this.root] != 0) {
+			this.root = this.arena.parent[this.root];
+		}
+	}
+
+	/**
+	 * Walks up from child, whose subtree has just grown one level taller,
+	 * fixing balance codes and rotating where a node becomes unbalanced.
+	 */
+	private void rebalanceAfterInsert(int child) {
+		NodeArena a = this.arena;
+		int parent = a.parent[child];
+		while (parent != 0) {
+			if (a.left[parent] == child) {
+				if (a.balance[parent] == NodeArena.RIGHT) {
+					a.balance[parent] = NodeArena.SAME;
+					return;
+				}
+				if (a.balance[parent] == NodeArena.SAME) {
+					a.balance[parent] = NodeArena.LEFT;
+					a.height[parent]++;
+				}
+				else if (a.balance[child] == NodeArena.RIGHT) {
+					this.doubleRightRotation(child, a.right[child]);
+					this.numOfRotations += 2;
+					return;
+				}
+				else {
+					boolean stillTaller = a.balance[child] == NodeArena.SAME;
+					this.singleRightRotation(parent, child);
+					this.numOfRotations++;
+					if (!stillTaller) {
+						return;
+					}
+					parent = child;
+				}
+			}
+			else {
+				if (a.balance[parent] == NodeArena.LEFT) {
+					a.balance[parent] = NodeArena.SAME;
+					return;
+				}
+				if (a.balance[parent] == NodeArena.SAME) {
+					a.balance[parent] = NodeArena.RIGHT;
+					a.height[parent]++;
+				}
+				else if (a.balance[child] == NodeArena.LEFT) {
+					this.doubleLeftRotation(child, a.left[child]);
+					this.numOfRotations += 2;
+					return;
+				}
+				else {
+					boolean stillTaller = a.balance[child] == NodeArena.SAME;
+					this.singleLeftRotation(parent, child);
+					this.numOfRotations++;
+					if (!stillTaller) {
+						return;
+					}
+					parent = child;
+				}
+			}
+			child = parent;
+			parent = a.parent[parent];
+		}
+	}
+
+	/**
+	 * Walks up from parent, whose left (or right) subtree has just become one
+	 * level shorter, fixing balance codes and rotating where a node becomes
+	 * unbalanced.
+	 */
+	private void rebalanceAfterDelete(int parent, boolean fromLeft) {
+		NodeArena a = this.arena;
+		while (parent != 0) {
+			int top = parent;
+			if (fromLeft) {
+				if (a.balance[parent] == NodeArena.SAME) {
+					a.balance[parent] = NodeArena.RIGHT;
+					return;
+				}
+				if (a.balance[parent] == NodeArena.LEFT) {
+					a.balance[parent] = NodeArena.SAME;
+					a.height[parent]--;
+				}
+				else {
+					int sibling = a.right[parent];
+					if (a.balance[sibling] == NodeArena.LEFT) {
+						top = a.left[sibling];
+						this.doubleLeftRotation(sibling, a.left[sibling]);
+						this.numOfRotations += 2;
+					}
+					else {
+						byte siblingBalance = a.balance[sibling];
+						this.singleLeftRotation(parent, sibling);
+						this.numOfRotations++;
+						if (siblingBalance == NodeArena.SAME) {
+							return;
+						}
+						top = sibling;
+					}
+				}
+			}
+			else {
+				if (a.balance[parent] == NodeArena.SAME) {
+					a.balance[parent] = NodeArena.LEFT;
+					return;
+				}
+				if (a.balance[parent] == NodeArena.RIGHT) {
+					a.balance[parent] = NodeArena.SAME;
+					a.height[parent]--;
+				}
+				else {
+					int sibling = a.left[parent];
+					if (a.balance[sibling] == NodeArena.RIGHT) {
+						top = a.right[sibling];
+						this.doubleRightRotation(sibling, a.right[sibling]);
+						this.numOfRotations += 2;
+					}
+					else {
+						byte siblingBalance = a.balance[sibling];
+						this.singleRightRotation(parent, sibling);
+						this.numOfRotations++;
+						if (siblingBalance == NodeArena.SAME) {
+							return;
+						}
+						top = sibling;
+					}
+				}
+			}
+			parent = a.parent[top];
+			fromLeft = a.left[parent] == top;
+		}
+	}
+
+	/**
+	 * Unlinks node from this tree, keeping ranks and balance up to date. The
+	 * slot is not released.
+	 */
+	private void removeNode(int node) {
+		NodeArena a = this.arena;
+		this.adjustAncestors(node, -1);
+		int replacement;
+		int retraceFrom;
+		boolean fromLeft;
+		if (a.left[node] != 0 && a.right[node] != 0) {
+			// the inorder successor takes node's place
+			int successor = this.leftmost(a.right[node]);
+			int child = successor;
+			int parent = a.parent[successor];
+			while (parent != node) {
+				a.size[parent]--;
+				if (a.left[parent] == child) {
+					a.rank[parent]--;
+				}
+				child = parent;
+				parent = a.parent[parent];
+			}
+			if (a.parent[successor] == node) {
+				retraceFrom = successor;
+				fromLeft = false;
+			}
+			else {
+				retraceFrom = a.parent[successor];
+				fromLeft = true;
+				a.left[retraceFrom] = a.right[successor];
+				this.setParent(a.right[successor], retraceFrom);
+				a.right[successor] = a.right[node];
+				a.parent[a.right[node]] = successor;
+			}
+			a.left[successor] = a.left[node];
+			a.parent[a.left[node]] = successor;
+			a.rank[successor] = a.rank[node];
+			a.size[successor] = a.size[node] - 1;
+			a.balance[successor] = a.balance[node];
+			a.height[successor] = a.height[node];
+			replacement = successor;
+		}
+		else {
+			replacement = a.left[node] != 0 ? a.left[node] : a.right[node];
+			retraceFrom = a.parent[node];
+			fromLeft = a.left[a.parent[node]] == node;
+		}
+		int parent = a.parent[node];
+		if (parent == 0) {
+			this.root = replacement;
+		}
+		else if (a.left[parent] == node) {
+			a.left[parent] = replacement;
+		}
+		else {
+			a.right[parent] = replacement;
+		}
+		this.setParent(replacement, parent);
+		a.left[node] = 0;
+		a.right[node] = 0;
+		a.parent[node] = 0;
+		if (retraceFrom != 0) {
+			this.rebalanceAfterDelete(retraceFrom, fromLeft);
+		}
+		this.resetRoot();
+	}
+
+	private void setParent(int child, int parent) {
+		if (child != 0) {
+			this.arena.parent[child] = parent;
+		}
+	}
+
+	/**
+	 *
+	 * @param pos
+	 *            position of character to delete from this tree
+	 * @return the character that is deleted
+	 * @throws IndexOutOfBoundsException
+	 */
+	public char delete(int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos >= this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		int node = this.nodeAt(pos);
+		char charDeleted = this.arena.element[node];
+		this.removeNode(node);
+		this.arena.release(node);
+		return charDeleted;
+	}
+
+	/**
+	 * Deletes length characters starting at start with split and concatenate,
+	 * then moves them to an arena of their own, so this takes O(length + log
+	 * N) and their slots here are free for reuse.
+	 *
+	 * @param start
+	 *            position of beginning of string to delete
+	 *
+	 * @param length
+	 *            length of string to delete
+	 * @return a tree containing the deleted string
+	 * @throws IndexOutOfBoundsException
+	 *             if start or length is negative or start+length is greater
+	 *             than the size of this tree; a range that ends at the end of
+	 *             this tree is fine.
+	 */
+	public ArenaEditTree delete(int start, int length)
+			throws IndexOutOfBoundsException {
+		if (start < 0 || length < 0 || length > this.size() - start)
+			throw new IndexOutOfBoundsException(
+					(start < 0 || length < 0) ? "negative argument to delete"
+							: "delete range extends past end of string");
+		int[] halves = this.split(this.root, start);
+		int[] rest = this.split(halves[1], length);
+		this.root = halves[0];
+		this.concatenate(new ArenaEditTree(this.arena, rest[1]));
+		return this.detach(rest[0]);
+	}
+
+	/**
+	 * Copies the detached subtree rooted at node into a tree with an arena of
+	 * its own, then releases its slots in this tree's arena.
+	 *
+	 * @return the new tree
+	 */
+	private ArenaEditTree detach(int node) {
+		ArenaEditTree t = new ArenaEditTree(new NodeArena(this.arena.size[node] + 1), 0);
+		t.root = t.copyTree(this.arena, node, 0);
+		this.releaseTree(node);
+		return t;
+	}
+
+	/**
+	 * Append the contents of the other tree to this one, leaving other empty.
+	 * Other's nodes are first copied into this tree's arena, so this takes
+	 * O(M + log N) for M characters in other.
+	 *
+	 * @param other
+	 * @throws IllegalArgumentException
+	 *             if this == other
+	 */
+	public void concatenate(ArenaEditTree other) throws IllegalArgumentException {
+		if (this == other) {
+			throw new IllegalArgumentException();
+		}
+		int otherRoot = other.root;
+		other.root = 0;
+		if (other.arena != this.arena) {
+			int copy = this.copyTree(other.arena, otherRoot, 0);
+			other.releaseTree(otherRoot);
+			otherRoot = copy;
+		}
+		if (otherRoot == 0) {
+			return;
+		}
+		if (this.root == 0) {
+			this.root = otherRoot;
+			return;
+		}
+		// take the node that joins the two trees from the shorter one
+		ArenaEditTree rest = new ArenaEditTree(this.arena, otherRoot);
+		int q;
+		if (this.height() >= rest.height()) {
+			q = rest.leftmost(rest.root);
+			rest.removeNode(q);
+		}
+		else {
+			q = this.rightmost(this.root);
+			this.removeNode(q);
+		}
+		this.numOfRotations += rest.numOfRotations;
+		this.root = this.paste(this.root, q, rest.root);
+	}
+
+	/**
+	 * Joins the trees rooted at t and v with the detached node q between them.
+	 *
+	 * @return the root of the joined tree
+	 */
+	private int paste(int t, int q, int v) {
+		NodeArena a = this.arena;
+		int ht = a.height[t];
+		int hv = a.height[v];
+		a.rank[q] = a.size[t];
+		a.parent[q] = 0;
+		if (ht > hv + 1) {
+			int p = t;
+			int added = 1 + a.size[v];
+			while (a.height[p] > hv + 1) {
+				a.size[p] += added;
+				p = a.right[p];
+			}
+			int parent = (p == 0) ? this.rightmost(t) : a.parent[p];
+			a.rank[q] = a.size[p];
+			this.link(p, q, v);
+			a.right[parent] = q;
+			a.parent[q] = parent;
+			this.rebalanceAfterInsert(q);
+			return this.topOf(q);
+		}
+		if (hv > ht + 1) {
+			int p = v;
+			int added = a.size[t] + 1;
+			while (a.height[p] > ht + 1) {
+				a.rank[p] += added;
+				a.size[p] += added;
+				p = a.left[p];
+			}
+			int parent = (p == 0) ? this.leftmost(v) : a.parent[p];
+			this.link(t, q, p);
+			a.left[parent] = q;
+			a.parent[q] = parent;
+			this.rebalanceAfterInsert(q);
+			return this.topOf(q);
+		}
+		this.link(t, q, v);
+		return q;
+	}
+
+	/**
+	 * Makes left and right the subtrees of node and sets its size, height and
+	 * balance code from them.
+	 */
+	private void link(int left, int node, int right) {
+		NodeArena a = this.arena;
+		a.left[node] = left;
+		a.right[node] = right;
+		this.setParent(left, node);
+		this.setParent(right, node);
+		a.size[node] = a.size[left] + 1 + a.size[right];
+		this.updateBalance(node);
+	}
+
+	private int topOf(int node) {
+		while (this.arena.parent[node] != 0) {
+			node = this.arena.parent[node];
+		}
+		return node;
+	}
+
+	/**
+	 * Cuts this tree in time proportional to its height, then moves the
+	 * elements cut off to an arena of their own, so this takes O(M + log N)
+	 * for M elements at or after pos.
+	 *
+	 * @param pos
+	 *            where to split this tree
+	 * @return a new tree containing all of the elements of this tree whose
+	 *         positions are >= position. Their nodes are removed from this
+	 *         tree.
+	 * @throws IndexOutOfBoundsException
+	 */
+	public ArenaEditTree split(int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		int[] halves = this.split(this.root, pos);
+		this.root = halves[0];
+		return this.detach(halves[1]);
+	}
+
+	/**
+	 * Splits the detached subtree rooted at node before position pos, pasting
+	 * the pieces cut off on the way down back together.
+	 *
+	 * @return the roots of the two halves
+	 */
+	private int[] split(int node, int pos) {
+		if (node == 0) {
+			return new int[] {0, 0};
+		}
+		NodeArena a = this.arena;
+		int left = a.left[node];
+		int right = a.right[node];
+		int leftSize = a.rank[node];
+		this.setParent(left, 0);
+		this.setParent(right, 0);
+		a.left[node] = 0;
+		a.right[node] = 0;
+		if (pos <= leftSize) {
+			int[] halves = this.split(left, pos);
+			halves[1] = this.paste(halves[1], node, right);
+			return halves;
+		}
+		int[] halves = this.split(right, pos - leftSize - 1);
+		halves[0] = this.paste(left, node, halves[0]);
+		return halves;
+	}
+
+	/**
+	 *
+	 * @param s
+	 *            the string to look for
+	 * @return the position in this tree of the first occurrence of s; -1 if s
+	 *         does not occur
+	 */
+	public int find(String s) {
+		return this.find(s, 0);
+	}
+
+	/**
+	 *
+	 * @param s
+	 *            the string to search for
+	 * @param pos
+	 *            the position in the tree to begin the search
+	 * @return the position in this tree of the first occurrence of s that does
+	 *         not occur before position pos; -1 if s does not occur
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is negative or greater than the size of this tree
+	 */
+	public int find(String s, int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		int length = s.length();
+		if (length == 0) {
+			return pos;
+		}
+		if (this.size() - pos < length) {
+			return -1;
+		}
+		// Knuth-Morris-Pratt over an inorder walk of the slots from pos
+		int[] failure = EditTree.failureTable(s);
+		char[] element = this.arena.element;
+		int matched = 0;
+		for (int node = this.nodeAt(pos); node != 0; node = this.successor(node), pos++) {
+			char c = element[node];
+			while (matched > 0 && c != s.charAt(matched)) {
+				matched = failure[matched - 1];
+			}
+			if (c == s.charAt(matched)) {
+				matched++;
+				if (matched == length) {
+					return pos - length + 1;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private void updateBalance(int node) {
+		NodeArena a = this.arena;
+		int leftHeight = a.height[a.left[node]];
+		int rightHeight = a.height[a.right[node]];
+		if (leftHeight > rightHeight) {
+			a.balance[node] = NodeArena.LEFT;
+			a.height[node] = (byte) (leftHeight + 1);
+		}
+		else if (leftHeight < rightHeight) {
+			a.balance[node] = NodeArena.RIGHT;
+			a.height[node] = (byte) (rightHeight + 1);
+		}
+		else {
+			a.balance[node] = NodeArena.SAME;
+			a.height[node] = (byte) (leftHeight + 1);
+		}
+	}
+
+	private void updateSize(int node) {
+		NodeArena a = this.arena;
+		a.size[node] = a.size[a.left[node]] + 1 + a.size[a.right[node]];
+	}
+
+	private void singleLeftRotation(int parent, int child) {
+		NodeArena a = this.arena;
+		int grandparent = a.parent[parent];
+		a.right[parent] = a.left[child];
+		this.setParent(a.left[child], parent);
+		a.left[child] = parent;
+		a.parent[parent] = child;
+		a.parent[child] = grandparent;
+		if (grandparent != 0) {
+			if (a.right[grandparent] == parent) {
+				a.right[grandparent] = child;
+			}
+			else {
+				a.left[grandparent] = child;
+			}
+		}
+		//parent is now below child, so it goes first
+		this.updateBalance(parent);
+		this.updateBalance(child);
+		this.updateSize(parent);
+		this.updateSize(child);
+		a.rank[child] = a.size[parent];
+	}
+
+	private void singleRightRotation(int parent, int child) {
+		NodeArena a = this.arena;
+		int grandparent = a.parent[parent];
+		a.left[parent] = a.right[child];
+		this.setParent(a.right[child], parent);
+		a.right[child] = parent;
+		a.parent[parent] = child;
+		a.parent[child] = grandparent;
+		if (grandparent != 0) {
+			if (a.right[grandparent] == parent) {
+				a.right[grandparent] = child;
+			}
+			else {
+				a.left[grandparent] = child;
+			}
+		}
+		//parent is now below child, so it goes first
+		this.updateBalance(parent);
+		this.updateBalance(child);
+		this.updateSize(parent);
+		this.updateSize(child);
+		a.rank[parent] = a.size[a.left[parent]];
+	}
+
+	private void doubleRightRotation(int parent, int child) {
+		int grandparent = this.arena.parent[parent];
+		this.singleLeftRotation(parent, child);
+		this.singleRightRotation(grandparent, child);
+	}
+
+	private void doubleLeftRotation(int parent, int child) {
+		int grandparent = this.arena.parent[parent];
+		this.singleRightRotation(parent, child);
+		this.singleLeftRotation(grandparent, child);
+	}
+}
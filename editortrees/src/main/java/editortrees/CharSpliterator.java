@@ -0,0 +1,155 @@
+package editortrees;
+
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+// Walks a range of the characters of an EditTree for chars(). Each part keeps
+// the root of a subtree that holds its whole range; trySplit hands off the
+// part of the range before the middle of that subtree, so the parts follow
+// subtree boundaries and each one walks its own nodes.
+
+final class CharSpliterator implements Spliterator.OfInt {
+
+	// ranges shorter than this are not split any further
+	private static final int MIN_SPLIT = 1 << 10;
+
+	private Node root;    // a subtree that holds all of [from, to)
+	private int start;    // the position of the first character of that subtree
+	private int from;     // the position of the next character
+	private final int to; // the position just past the last character
+	private Node current; // the node holding from, found on the first advance
+	private int offset;   // the offset of from in current
+
+	CharSpliterator(Node root, int start, int from, int to) {
+		this.root = root;
+		this.start = start;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	public boolean tryAdvance(IntConsumer action) {
+		if (this.from >= this.to) {
+			return false;
+		}
+		if (this.current == null) {
+			this.locate();
+		}
+		action.accept(this.current.charAt(this.offset));
+		this.from++;
+		this.offset++;
+		if (this.offset == this.current.length() && this.from < this.to) {
+			this.current = this.current.successor();
+			this.offset = 0;
+		}
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(IntConsumer action) {
+		if (this.from >= this.to) {
+			return;
+		}
+		if (this.current == null) {
+			this.locate();
+		}
+		Node node = this.current;
+		int offset = this.offset;
+		int pos = this.from;
+		this.from = this.to;
+		while (true) {
+			int n = Math.min(node.length() - offset, this.to - pos);
+			for (int i = offset; i < offset + n; i++) {
+				action.accept(node.charAt(i));
+			}
+			pos += n;
+			if (pos == this.to) {
+				return;
+			}
+			node = node.successor();
+			offset = 0;
+		}
+	}
+
+	/**
+	 * Finds the node that holds from within the subtree at root.
+	 */
+	private void locate() {
+		Node current = this.root;
+		int addRank = this.start;
+		while (true) {
+			int start = current.rank + addRank;
+			if (this.from < start) {
+				current = current.left;
+			}
+			else if (this.from >= start + current.length()) {
+				addRank = start + current.length();
+				current = current.right;
+			}
+			else {
+				this.current = current;
+				this.offset = this.from - start;
+				return;
+			}
+		}
+	}
+
+	@Override
+	public Spliterator.OfInt trySplit() {
+		if (this.to - this.from < MIN_SPLIT) {
+			return null;
+		}
+		// move root down to the smallest subtree that still holds the range
+		Node node = this.root;
+		int ownStart;
+		int ownEnd;
+		while (true) {
+			ownStart = this.start + node.rank;
+			ownEnd = ownStart + node.length();
+			if (this.to <= ownStart) {
+				node = node.left;
+			}
+			else if (this.from >= ownEnd) {
+				this.start = ownEnd;
+				node = node.right;
+			}
+			else {
+				break;
+			}
+		}
+		this.root = node;
+		this.current = null;
+		CharSpliterator prefix;
+		if (this.from < ownStart) {
+			// the range runs from the left subtree into node
+			prefix = new CharSpliterator(node.left, this.start, this.from, ownStart);
+			this.from = ownStart;
+			return prefix;
+		}
+		if (this.to <= ownEnd) {
+			return null;
+		}
+		// the range runs from node into the right subtree, which is cut at its
+		// root if the range reaches that far
+		Node right = node.right;
+		int split = ownEnd + right.rank;
+		if (split >= this.to) {
+			split = ownEnd;
+		}
+		prefix = new CharSpliterator(node, this.start, this.from, split);
+		this.root = right;
+		this.start = ownEnd;
+		this.from = split;
+		return prefix;
+	}
+
+	@Override
+	public long estimateSize() {
+		return this.to - this.from;
+	}
+
+	@Override
+	public int characteristics() {
+		return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+	}
+}
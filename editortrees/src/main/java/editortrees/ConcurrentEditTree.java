@@ -0,0 +1,461 @@
+package editortrees;
+
+import java.util.concurrent.locks.StampedLock;
+
+// An EditTree that any number of threads can read while one thread at a time
+// edits it. Edits hold the write lock of a StampedLock. Reads first run
+// optimistically, holding no lock, and then check that no edit started in the
+// meantime; only if one did do they run again under the read lock, so readers
+// do not contend with one another. An optimistic read may run into a change
+// that is half made, so it follows links at most a bounded number of times and
+// treats any exception as a failed validation. Edits close the gap of a wrapped
+// tree with gap leaves before they let go of the lock, so readers never see it.
+
+public class ConcurrentEditTree {
+
+	// taller than any height-balanced tree with fewer than 2^31 nodes
+	private static final int MAX_HEIGHT = 48;
+
+	private final EditTree tree;
+	private final StampedLock lock;
+
+	/**
+	 * Construct an empty tree
+	 */
+	public ConcurrentEditTree() {
+		this(new EditTree());
+	}
+
+	/**
+	 * Wraps tree, which should not be used directly afterwards.
+	 *
+	 * @param tree
+	 */
+	public ConcurrentEditTree(EditTree tree) {
+		this.tree = tree;
+		this.lock = new StampedLock();
+	}
+
+	/**
+	 *
+	 * @return the number of characters in this tree
+	 */
+	public int size() {
+		long stamp = this.lock.tryOptimisticRead();
+		int size = this.tree.size();
+		if (this.lock.validate(stamp)) {
+			return size;
+		}
+		stamp = this.lock.readLock();
+		try {
+			return this.tree.size();
+		}
+		finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 *
+	 * @param pos
+	 *            position in the tree
+	 * @return the character at that position
+	 * @throws IndexOutOfBoundsException
+	 */
+	public char get(int pos) throws IndexOutOfBoundsException {
+		long stamp = this.lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				if (pos >= 0 && pos < this.tree.size()) {
+					Walk walk = new Walk(0);
+					if (walk.seek(this.tree.peekRoot(), pos)) {
+						char c = walk.node.charAt(walk.offset);
+						if (this.lock.validate(stamp)) {
+							return c;
+						}
+					}
+				}
+			}
+			catch (RuntimeException e) {
+				// the read ran into an edit, which validation would have caught
+			}
+		}
+		stamp = this.lock.readLock();
+		try {
+			return this.tree.get(pos);
+		}
+		finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 *
+	 * @param pos
+	 *            location of the beginning of the string to retrieve
+	 * @param length
+	 *            length of the string to retrieve
+	 * @return string of length that starts in position pos
+	 * @throws IndexOutOfBoundsException
+	 *             unless both pos and pos+length-1 are legitimate indexes
+	 *             within this tree.
+	 */
+	public String get(int pos, int length) throws IndexOutOfBoundsException {
+		long stamp = this.lock.tryOptimisticRead();
+		if (stamp != 0 && length >= 0) {
+			try {
+				if (pos >= 0 && pos + length <= this.tree.size()) {
+					char[] result = new char[length];
+					if (ConcurrentEditTree.copyChars(this.tree.peekRoot(), pos, result)
+							&& this.lock.validate(stamp)) {
+						return new String(result);
+					}
+				}
+			}
+			catch (RuntimeException e) {
+				// the read ran into an edit, which validation would have caught
+			}
+		}
+		stamp = this.lock.readLock();
+		try {
+			return this.tree.get(pos, length);
+		}
+		finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 *
+	 * @param s
+	 *            the string to look for
+	 * @return the position in this tree of the first occurrence of s; -1 if s
+	 *         does not occur
+	 */
+	public int find(String s) {
+		return this.find(s, 0);
+	}
+
+	/**
+	 *
+	 * @param s
+	 *            the string to search for
+	 * @param pos
+	 *            the position in the tree to begin the search
+	 * @return the position in this tree of the first occurrence of s that does
+	 *         not occur before position pos; -1 if s does not occur
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is negative or greater than the size of this tree
+	 */
+	public int find(String s, int pos) throws IndexOutOfBoundsException {
+		long stamp = this.lock.tryOptimisticRead();
+		if (stamp != 0 && s.length() > 0) {
+			try {
+				int size = this.tree.size();
+				if (pos >= 0 && pos <= size) {
+					int found = ConcurrentEditTree.find(this.tree.peekRoot(), size, s, pos);
+					if (found != -2 && this.lock.validate(stamp)) {
+						return found;
+					}
+				}
+			}
+			catch (RuntimeException e) {
+				// the read ran into an edit, which validation would have caught
+			}
+		}
+		stamp = this.lock.readLock();
+		try {
+			if (pos < 0 || pos > this.tree.size()) {
+				throw new IndexOutOfBoundsException();
+			}
+			// search rather than find, whose metrics other readers would share
+			return this.tree.search(s, pos);
+		}
+		finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public String toString() {
+		long stamp = this.lock.readLock();
+		try {
+			return this.tree.toString();
+		}
+		finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 *
+	 * @param c
+	 *            character to add to the end of this tree.
+	 */
+	public void add(char c) {
+		long stamp = this.lock.writeLock();
+		try {
+			this.tree.add(c);
+		}
+		finally {
+			this.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 *
+	 * @param c
+	 *            character to add
+	 * @param pos
+	 *            character added in this inorder position
+	 * @throws IndexOutOfBoundsException
+	 *             id pos is negative or too large for this tree
+	 */
+	public void add(char c, int pos) throws IndexOutOfBoundsException {
+		long stamp = this.lock.writeLock();
+		try {
+			this.tree.add(c, pos);
+			this.tree.settle();
+		}
+		finally {
+			this.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 *
+	 * @param s
+	 *            characters to add
+	 * @param pos
+	 *            position of the first added character
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is negative or too large for this tree
+	 */
+	public void add(CharSequence s, int pos) throws IndexOutOfBoundsException {
+		long stamp = this.lock.writeLock();
+		try {
+			this.tree.add(s, pos);
+		}
+		finally {
+			this.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 *
+	 * @param pos
+	 *            position of character to delete from this tree
+	 * @return the character that is deleted
+	 * @throws IndexOutOfBoundsException
+	 */
+	public char delete(int pos) throws IndexOutOfBoundsException {
+		long stamp = this.lock.writeLock();
+		try {
+			char deleted = this.tree.delete(pos);
+			this.tree.settle();
+			return deleted;
+		}
+		finally {
+			this.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 *
+	 * @param start
+	 *            position of beginning of string to delete
+	 * @param length
+	 *            length of string to delete
+	 * @return an EditTree containing the deleted string
+	 * @throws IndexOutOfBoundsException
+	 *             if start or length is negative or start+length is greater
+	 *             than the size of this tree; a range that ends at the end of
+	 *             this tree is fine.
+	 */
+	public EditTree delete(int start, int length) throws IndexOutOfBoundsException {
+		long stamp = this.lock.writeLock();
+		try {
+			return this.tree.delete(start, length);
+		}
+		finally {
+			this.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 *
+	 * @param pos
+	 *            where to split this tree
+	 * @return a new, unshared tree containing all of the elements of this tree
+	 *         whose positions are >= position. They are removed from this tree.
+	 * @throws IndexOutOfBoundsException
+	 */
+	public EditTree split(int pos) throws IndexOutOfBoundsException {
+		long stamp = this.lock.writeLock();
+		try {
+			return this.tree.split(pos);
+		}
+		finally {
+			this.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Appends the contents of other, which must not be shared with other
+	 * threads, to this tree, leaving other empty.
+	 *
+	 * @param other
+	 * @throws IllegalArgumentException
+	 *             if other is the tree wrapped by this one
+	 */
+	public void concatenate(EditTree other) throws IllegalArgumentException {
+		long stamp = this.lock.writeLock();
+		try {
+			this.tree.concatenate(other);
+		}
+		finally {
+			this.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Copies the characters starting at pos into all of dst without locking.
+	 *
+	 * @return false if the walk gave up because the tree changed under it
+	 */
+	private static boolean copyChars(Node root, int pos, char[] dst) {
+		if (dst.length == 0) {
+			return true;
+		}
+		Walk walk = new Walk(dst.length);
+		if (!walk.seek(root, pos)) {
+			return false;
+		}
+		int copied = 0;
+		while (true) {
+			int n = Math.min(walk.node.length() - walk.offset, dst.length - copied);
+			walk.node.getChars(walk.offset, n, dst, copied);
+			copied += n;
+			if (copied == dst.length) {
+				return true;
+			}
+			if (!walk.advance()) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * EditTree.find(s, pos) without locking, for a tree of the given size.
+	 *
+	 * @return the position found or -1, or -2 if the walk gave up because the
+	 *         tree changed under it
+	 */
+	private static int find(Node root, int size, String s, int pos) {
+		int length = s.length();
+		if (size - pos < length) {
+			return -1;
+		}
+		int[] failure = EditTree.failureTable(s);
+		Walk walk = new Walk(size - pos);
+		if (!walk.seek(root, pos)) {
+			return -2;
+		}
+		int matched = 0;
+		while (pos < size) {
+			for (int offset = walk.offset; offset < walk.node.length(); offset++, pos++) {
+				char c = walk.node.charAt(offset);
+				while (matched > 0 && c != s.charAt(matched)) {
+					matched = failure[matched - 1];
+				}
+				if (c == s.charAt(matched)) {
+					matched++;
+					if (matched == length) {
+						return pos - length + 1;
+					}
+				}
+			}
+			if (!walk.advance()) {
+				return -2;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * A position in an inorder walk of a tree that may be changing. Every link
+	 * followed comes out of a budget that is enough for a tree that holds
+	 * still, so the walk cannot go round forever in a half-made change.
+	 */
+	private static final class Walk {
+
+		Node node;   // the node holding the current character
+		int offset;  // the position of the current character within node
+		private int budget;
+
+		/**
+		 * @param nodes
+		 *            how many nodes the walk may visit after the first
+		 */
+		Walk(int nodes) {
+			// an inorder walk over k nodes follows fewer than 2k + 2h links
+			this.budget = 2 * nodes + 4 * MAX_HEIGHT;
+		}
+
+		/**
+		 * Descends from root to the character at pos.
+		 *
+		 * @return false if the descent gave up
+		 */
+		boolean seek(Node root, int pos) {
+			Node current = root;
+			int addRank = 0;
+			for (int depth = 0; depth <= MAX_HEIGHT; depth++) {
+				int start = current.rank + addRank;
+				if (pos < start) {
+					current = current.left;
+				}
+				else if (pos >= start + current.length()) {
+					addRank = start + current.length();
+					current = current.right;
+				}
+				else {
+					this.node = current;
+					this.offset = pos - start;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Moves to the first character of the next node.
+		 *
+		 * @return false if the walk gave up or ran off the end of the tree
+		 */
+		boolean advance() {
+			Node current = this.node;
+			if (current.right != EditTree.NULL_NODE) {
+				current = current.right;
+				while (current.left != EditTree.NULL_NODE) {
+					current = current.left;
+					if (--this.budget < 0) {
+						return false;
+					}
+				}
+			}
+			else {
+				while (current.parent != EditTree.NULL_NODE && current.parent.right == current) {
+					current = current.parent;
+					if (--this.budget < 0) {
+						return false;
+					}
+				}
+				current = current.parent;
+			}
+			this.node = current;
+			this.offset = 0;
+			return --this.budget >= 0 && current != EditTree.NULL_NODE;
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package editortrees;
+
+import java.util.NoSuchElementException;
+
+// A position in an EditTree that reads the characters after or before it and
+// moves past them, like a ListIterator. It keeps the node that holds its
+// position and moves by successor and predecessor through the parent links,
+// so each step is amortized O(1).
+//
+// Edits to the tree do not break a cursor: it keeps its position (cut back to
+// the end of the tree if the tree is shorter than that when the cursor is next
+// used) and finds its node again, in O(log N), the next time it moves.
+
+public final class Cursor {
+
+	private final EditTree tree;
+	private int position;
+	private Node node;    // the node holding position, or null if it has to be found
+	private int offset;   // the offset of position in node
+	private int version;  // the version of tree that node was found in
+
+	Cursor(EditTree tree, int position) {
+		this.tree = tree;
+		this.position = position;
+		this.version = tree.version();
+	}
+
+	/**
+	 *
+	 * @return the position of the character next() would return
+	 */
+	public int position() {
+		this.sync();
+		return this.position;
+	}
+
+	/**
+	 * Moves this cursor to pos, in O(log N) unless pos is next to where it is.
+	 *
+	 * @param pos
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is negative or greater than the size of the tree
+	 */
+	public void moveTo(int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.tree.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		this.sync();
+		if (pos == this.position + 1 && this.position < this.tree.size()) {
+			this.next();
+		}
+		else if (pos == this.position - 1) {
+			this.previous();
+		}
+		else if (pos != this.position) {
+			this.position = pos;
+			this.node = null;
+		}
+	}
+
+	/**
+	 *
+	 * @return true if there is a character after this cursor
+	 */
+	public boolean hasNext() {
+		this.sync();
+		return this.position < this.tree.size();
+	}
+
+	/**
+	 *
+	 * @return true if there is a character before this cursor
+	 */
+	public boolean hasPrevious() {
+		this.sync();
+		return this.position > 0;
+	}
+
+	/**
+	 * Reads the character after this cursor and moves past it.
+	 *
+	 * @return the character at position()
+	 * @throws NoSuchElementException
+	 *             if this cursor is at the end of the tree
+	 */
+	public char next() throws NoSuchElementException {
+		if (!this.hasNext()) {
+			throw new NoSuchElementException();
+		}
+		if (this.node == null) {
+			this.locate();
+		}
+		char c = this.node.charAt(this.offset);
+		this.position++;
+		this.offset++;
+		if (this.offset == this.node.length()) {
+			// at the end of the tree, leave it to locate to find any appends
+			Node successor = this.node.successor();
+			this.node = (successor == EditTree.NULL_NODE) ? null : successor;
+			this.offset = 0;
+		}
+		return c;
+	}
+
+	/**
+	 * Moves back over the character before this cursor and reads it.
+	 *
+	 * @return the character at position() - 1
+	 * @throws NoSuchElementException
+	 *             if this cursor is at the start of the tree
+	 */
+	public char previous() throws NoSuchElementException {
+		if (!this.hasPrevious()) {
+			throw new NoSuchElementException();
+		}
+		this.position--;
+		if (this.node == null) {
+			this.locate();
+		}
+		else if (this.offset > 0) {
+			this.offset--;
+		}
+		else {
+			this.node = this.node.predecessor();
+			this.offset = this.node.length() - 1;
+		}
+		return this.node.charAt(this.offset);
+	}
+
+	/**
+	 * Drops the node of this cursor if the tree has been edited since it was
+	 * found.
+	 */
+	private void sync() {
+		if (this.version != this.tree.version()) {
+			this.version = this.tree.version();
+			this.node = null;
+			this.position = Math.min(this.position, this.tree.size());
+		}
+	}
+
+	/**
+	 * Finds the node that holds position, which must be inside the tree.
+	 */
+	private void locate() {
+		this.tree.settle();
+		Node current = this.tree.peekRoot();
+		int addRank = 0;
+		while (true) {
+			int start = current.rank + addRank;
+			if (this.position < start) {
+				current = current.left;
+			}
+			else if (this.position >= start + current.length()) {
+				addRank = start + current.length();
+				current = current.right;
+			}
+			else {
+				this.node = current;
+				this.offset = this.position - start;
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package editortrees;
+
+// One change in a batch for EditTree.applyEdits: delete deleteLength characters
+// at position, then insert insertText there. Positions are in the coordinates
+// of the tree before any edit of the batch is made.
+
+public final class Edit {
+
+	private final int position;
+	private final int deleteLength;
+	private final String insertText;
+
+	/**
+	 *
+	 * @param position
+	 *            where the edit starts, before any edit of its batch is made
+	 * @param deleteLength
+	 *            number of characters to delete from position
+	 * @param insertText
+	 *            characters to insert at position
+	 * @throws IllegalArgumentException
+	 *             if position or deleteLength is negative
+	 */
+	public Edit(int position, int deleteLength, CharSequence insertText) throws IllegalArgumentException {
+		if (position < 0 || deleteLength < 0) {
+			throw new IllegalArgumentException("negative position or delete length");
+		}
+		this.position = position;
+		this.deleteLength = deleteLength;
+		this.insertText = insertText.toString();
+	}
+
+	public int getPosition() {
+		return this.position;
+	}
+
+	public int getDeleteLength() {
+		return this.deleteLength;
+	}
+
+	public String getInsertText() {
+		return this.insertText;
+	}
+
+	@Override
+	public String toString() {
+		return "Edit(" + this.position + ", " + this.deleteLength + ", \"" + this.insertText + "\")";
+	}
+}
@@ -0,0 +1,34 @@
+package editortrees;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+// A Flight Recorder event for the EditTree operations that restructure the
+// tree: split, concatenate and paste. When recording is off, begin, end and
+// shouldCommit cost next to nothing and the event is never filled in.
+
+@Name("editortrees.Edit")
+@Label("Edit Tree Restructure")
+@Category("Editor Tree")
+@Description("A split, concatenate or paste on an EditTree")
+@Threshold("1 ms")
+final class EditEvent extends Event {
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Position")
+	int position;
+
+	@Label("Length")
+	@Description("Characters split off, concatenated or pasted")
+	int length;
+
+	@Label("Tree Size")
+	@Description("Characters in the tree before the operation")
+	int treeSize;
+}
@@ -0,0 +1,204 @@
+package editortrees;
+
+import java.util.ArrayDeque;
+
+// The undo history of an EditTree. Every recorded edit is kept as its inverse:
+// where characters went in or came out, plus the characters that came out, so
+// undoing or redoing an edit is a split and a concatenate rather than a copy of
+// the tree. Edits are undone a step at a time; a step is one edit, or every edit
+// made while a group was open.
+
+class EditJournal {
+
+	static final class Entry {
+		final boolean insert; // true if the edit added characters, false if it removed them
+		final int pos;        // position of the first character added or removed
+		int length;           // number of characters added or removed
+		char c;               // the character, while it is out of the tree and text is null
+		EditTree text;        // the characters, while they are out of the tree, when there are several
+		boolean stepStart;    // whether this entry is the first of its step
+
+		Entry(boolean insert, int pos, int length) {
+			this.insert = insert;
+			this.pos = pos;
+			this.length = length;
+		}
+
+		/**
+		 *
+		 * @return what this entry counts against the history limit
+		 */
+		int cost() {
+			return this.text == null ? 1 : 1 + this.text.size();
+		}
+	}
+
+	private final ArrayDeque<Entry> undo; // oldest entry first
+	private final ArrayDeque<Entry> redo; // next entry to redo last
+	private int limit;                    // the most that all entries may cost together
+	private int cost;                     // what all entries cost now
+	private int openGroups;               // depth of nested groups
+	private boolean groupRecorded;        // whether the outermost open group has recorded an entry
+
+	EditJournal(int limit) {
+		this.undo = new ArrayDeque<Entry>();
+		this.redo = new ArrayDeque<Entry>();
+		this.limit = limit;
+		this.cost = 0;
+		this.openGroups = 0;
+		this.groupRecorded = false;
+	}
+
+	void setLimit(int limit) {
+		this.limit = limit;
+		this.trim();
+	}
+
+	void beginGroup() {
+		if (this.openGroups++ == 0) {
+			this.groupRecorded = false;
+		}
+	}
+
+	void endGroup() {
+		if (this.openGroups > 0) {
+			this.openGroups--;
+		}
+	}
+
+	/**
+	 * Records that length characters were added at pos. An insert that
+	 * continues the previous one within an open group is folded into it.
+	 */
+	void recordInsert(int pos, int length) {
+		Entry previous = this.undo.peekLast();
+		if (this.openGroups > 0 && this.groupRecorded && previous != null && previous.insert
+				&& previous.pos + previous.length == pos) {
+			previous.length += length;
+			this.clearRedo();
+			return;
+		}
+		this.record(new Entry(true, pos, length));
+	}
+
+	/**
+	 * Records that c was removed from pos.
+	 */
+	void recordDelete(int pos, char c) {
+		Entry entry = new Entry(false, pos, 1);
+		entry.c = c;
+		this.record(entry);
+	}
+
+	/**
+	 * Records that the characters of text were removed from pos. The journal
+	 * keeps text itself.
+	 *
+	 * @return the entry keeping text
+	 */
+	Entry recordDelete(int pos, EditTree text) {
+		Entry entry = new Entry(false, pos, text.size());
+		entry.text = text;
+		this.record(entry);
+		return entry;
+	}
+
+	private void record(Entry entry) {
+		this.clearRedo();
+		entry.stepStart = this.openGroups == 0 || !this.groupRecorded || this.undo.isEmpty();
+		this.groupRecorded = this.openGroups > 0;
+		this.undo.addLast(entry);
+		this.cost += entry.cost();
+		this.trim();
+	}
+
+	boolean canUndo() {
+		return !this.undo.isEmpty();
+	}
+
+	boolean canRedo() {
+		return !this.redo.isEmpty();
+	}
+
+	/**
+	 * Takes the newest entry off the undo side. The caller reverts it and then
+	 * hands it to pushRedo.
+	 */
+	Entry popUndo() {
+		Entry entry = this.undo.removeLast();
+		this.cost -= entry.cost();
+		// a group still open when its step is undone is over
+		this.groupRecorded = false;
+		return entry;
+	}
+
+	void pushRedo(Entry entry) {
+		this.redo.addLast(entry);
+		this.cost += entry.cost();
+	}
+
+	/**
+	 * Takes the next entry off the redo side. The caller reapplies it and then
+	 * hands it to pushUndo.
+	 *
+	 * @return the entry, or null if the next entry starts another step
+	 */
+	Entry popRedo(boolean first) {
+		Entry entry = this.redo.peekLast();
+		if (entry == null || (!first && entry.stepStart)) {
+			return null;
+		}
+		this.redo.removeLast();
+		this.cost -= entry.cost();
+		return entry;
+	}
+
+	void pushUndo(Entry entry) {
+		this.undo.addLast(entry);
+		this.cost += entry.cost();
+		this.groupRecorded = false;
+	}
+
+	void clear() {
+		while (!this.undo.isEmpty()) {
+			this.drop(this.undo.removeLast());
+		}
+		this.clearRedo();
+		this.groupRecorded = false;
+	}
+
+	private void clearRedo() {
+		while (!this.redo.isEmpty()) {
+			this.drop(this.redo.removeLast());
+		}
+	}
+
+	/**
+	 * Forgets an entry taken off either side. A tree it kept may still be
+	 * held by whoever deleted it, who need no longer copy it for the entry.
+	 */
+	private void drop(Entry entry) {
+		this.cost -= entry.cost();
+		entry.text = null;
+	}
+
+	/**
+	 * Drops steps until the history fits its limit again: first those
+	 * furthest ahead on the redo side, then the oldest on the undo side.
+	 */
+	void trim() {
+		while (this.cost > this.limit && !this.redo.isEmpty()) {
+			// the entries of a redo step run up to the one that starts it
+			Entry entry;
+			do {
+				entry = this.redo.removeFirst();
+				this.drop(entry);
+			} while (!entry.stepStart && !this.redo.isEmpty());
+		}
+		while (this.cost > this.limit && !this.undo.isEmpty()) {
+			do {
+				this.drop(this.undo.removeFirst());
+			} while (!this.undo.isEmpty() && !this.undo.peekFirst().stepStart);
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package editortrees;
+
+import java.util.Arrays;
+
+// Counters an EditTree keeps about its own operations while metrics are on:
+// how many of each kind ran and how long they took, the rotations each kind
+// caused, and how tall the tree has grown.
+
+public final class EditMetrics {
+
+	/**
+	 * The operations of an EditTree that are counted and timed. ADD covers
+	 * the single character adds and append, PASTE adds a whole CharSequence,
+	 * and DELETE covers both deletes.
+	 */
+	public enum Operation {
+		ADD, PASTE, DELETE, SPLIT, CONCATENATE, FIND, APPLY_EDITS, UNDO, REDO
+	}
+
+	// latencies go into power-of-two buckets of nanoseconds: bucket 0 holds
+	// 0 ns and bucket i holds [2^(i-1), 2^i)
+	private static final int BUCKETS = 64;
+	private static final int OPERATIONS = Operation.values().length;
+
+	private final long[] counts = new long[OPERATIONS];
+	private final long[] nanos = new long[OPERATIONS];
+	private final long[][] latencies = new long[OPERATIONS][BUCKETS];
+	private final long[] singleRotations = new long[OPERATIONS];
+	private final long[] doubleRotations = new long[OPERATIONS];
+	private Operation current; // the operation running now, or null between operations
+	private int height;
+	private int maxHeight;
+
+	EditMetrics(int height) {
+		this.height = height;
+		this.maxHeight = height;
+	}
+
+	/**
+	 * Marks the start of an operation.
+	 *
+	 * @return the time it started, to hand to end
+	 */
+	long begin(Operation operation) {
+		this.current = operation;
+		return System.nanoTime();
+	}
+
+	/**
+	 * Marks the end of operation, begun at start, which left the tree height
+	 * tall.
+	 */
+	void end(Operation operation, long start, int height) {
+		long elapsed = System.nanoTime() - start;
+		int i = operation.ordinal();
+		this.counts[i]++;
+		this.nanos[i] += elapsed;
+		this.latencies[i][64 - Long.numberOfLeadingZeros(Math.max(elapsed, 0))]++;
+		this.current = null;
+		this.height = height;
+		this.maxHeight = Math.max(this.maxHeight, height);
+	}
+
+	/**
+	 * Counts a rotation made by the running operation. Rotations made between
+	 * operations (there are none at present) are not counted.
+	 */
+	void rotated(boolean isDouble) {
+		if (this.current == null) {
+			return;
+		}
+		if (isDouble) {
+			this.doubleRotations[this.current.ordinal()]++;
+		}
+		else {
+			this.singleRotations[this.current.ordinal()]++;
+		}
+	}
+
+	/**
+	 *
+	 * @param operation
+	 * @return how many times operation has run
+	 */
+	public long count(Operation operation) {
+		return this.counts[operation.ordinal()];
+	}
+
+	/**
+	 *
+	 * @param operation
+	 * @return the nanoseconds spent in operation altogether
+	 */
+	public long totalNanos(Operation operation) {
+		return this.nanos[operation.ordinal()];
+	}
+
+	/**
+	 * Element 0 of the histogram counts the runs of operation that took no
+	 * measurable time, and element i those that took at least 2^(i-1) and
+	 * less than 2^i nanoseconds.
+	 *
+	 * @param operation
+	 * @return a copy of the latency histogram of operation
+	 */
+	public long[] latencyHistogram(Operation operation) {
+		return this.latencies[operation.ordinal()].clone();
+	}
+
+	/**
+	 *
+	 * @param operation
+	 * @param fraction
+	 *            between 0 and 1, such as 0.99
+	 * @return an upper bound, exact to a factor of two, on the nanoseconds
+	 *         within which that fraction of the runs of operation finished; 0
+	 *         if it has not run
+	 * @throws IllegalArgumentException
+	 *             if fraction is not between 0 and 1
+	 */
+	public long latencyPercentile(Operation operation, double fraction) throws IllegalArgumentException {
+		if (!(fraction >= 0 && fraction <= 1)) {
+			throw new IllegalArgumentException("fraction must be between 0 and 1");
+		}
+		long[] histogram = this.latencies[operation.ordinal()];
+		long wanted = (long) Math.ceil(fraction * this.counts[operation.ordinal()]);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += histogram[i];
+			if (seen >= wanted && seen > 0) {
+				return i == 0 ? 0 : (i == 63 ? Long.MAX_VALUE : 1L << i);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 *
+	 * @param operation
+	 * @return the single rotations operation has made
+	 */
+	public long singleRotations(Operation operation) {
+		return this.singleRotations[operation.ordinal()];
+	}
+
+	/**
+	 *
+	 * @param operation
+	 * @return the double rotations operation has made, each counted once
+	 */
+	public long doubleRotations(Operation operation) {
+		return this.doubleRotations[operation.ordinal()];
+	}
+
+	/**
+	 *
+	 * @return the height of the tree after the last operation
+	 */
+	public int height() {
+		return this.height;
+	}
+
+	/**
+	 *
+	 * @return the greatest height the tree has had after an operation
+	 */
+	public int maxHeight() {
+		return this.maxHeight;
+	}
+
+	/**
+	 * Sets every counter back to zero, and the greatest height to the current
+	 * one.
+	 */
+	public void reset() {
+		Arrays.fill(this.counts, 0);
+		Arrays.fill(this.nanos, 0);
+		for (long[] histogram : this.latencies) {
+			Arrays.fill(histogram, 0);
+		}
+		Arrays.fill(this.singleRotations, 0);
+		Arrays.fill(this.doubleRotations, 0);
+		this.maxHeight = this.height;
+	}
+
+	/**
+	 * One line for each operation that has run, with its count, mean and 99th
+	 * percentile latency and rotations, then the heights.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		for (Operation operation : Operation.values()) {
+			long count = this.count(operation);
+			if (count == 0) {
+				continue;
+			}
+			result.append(operation).append(": count=").append(count)
+					.append(" mean=").append(this.totalNanos(operation) / count).append("ns")
+					.append(" p99<=").append(this.latencyPercentile(operation, 0.99)).append("ns")
+					.append(" single=").append(this.singleRotations(operation))
+					.append(" double=").append(this.doubleRotations(operation)).append('\n');
+		}
+		return result.append("height=").append(this.height)
+				.append(" maxHeight=").append(this.maxHeight).toString();
+	}
+}
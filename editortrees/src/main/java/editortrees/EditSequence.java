@@ -0,0 +1,128 @@
+package editortrees;
+
+// The operations an editor needs from the characters of a document, so that
+// EditTree can be measured against other structures on a real workload.
+// Positions count characters from 0. EditSequences picks and makes the
+// implementations: EditTree, TreapEditTree and PieceTable.
+
+public interface EditSequence extends CharSequence {
+
+	/**
+	 *
+	 * @return the number of characters in this sequence
+	 */
+	int size();
+
+	/**
+	 *
+	 * @param pos
+	 * @return the character at pos
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is negative or not less than size()
+	 */
+	char get(int pos) throws IndexOutOfBoundsException;
+
+	/**
+	 *
+	 * @param pos
+	 * @param length
+	 * @return the length characters starting at pos
+	 * @throws IndexOutOfBoundsException
+	 *             unless pos and length describe a range of this sequence
+	 */
+	String get(int pos, int length) throws IndexOutOfBoundsException;
+
+	/**
+	 * Adds c at the end of this sequence.
+	 *
+	 * @param c
+	 */
+	void add(char c);
+
+	/**
+	 * Adds c so that it ends up at position pos.
+	 *
+	 * @param c
+	 * @param pos
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is negative or greater than size()
+	 */
+	void add(char c, int pos) throws IndexOutOfBoundsException;
+
+	/**
+	 * Adds all of s so that its first character ends up at position pos.
+	 *
+	 * @param s
+	 * @param pos
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is negative or greater than size()
+	 */
+	void add(CharSequence s, int pos) throws IndexOutOfBoundsException;
+
+	/**
+	 *
+	 * @param pos
+	 * @return the character deleted from pos
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is negative or not less than size()
+	 */
+	char delete(int pos) throws IndexOutOfBoundsException;
+
+	/**
+	 *
+	 * @param start
+	 * @param length
+	 * @return a sequence of the same kind holding the length characters
+	 *         deleted from start
+	 * @throws IndexOutOfBoundsException
+	 *             if start or length is negative or start+length is greater
+	 *             than size()
+	 */
+	EditSequence delete(int start, int length) throws IndexOutOfBoundsException;
+
+	/**
+	 *
+	 * @param pos
+	 * @return a sequence of the same kind holding the characters from pos on,
+	 *         which are removed from this one
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is negative or greater than size()
+	 */
+	EditSequence split(int pos) throws IndexOutOfBoundsException;
+
+	/**
+	 * Moves the characters of other to the end of this sequence, leaving other
+	 * empty.
+	 *
+	 * @param other
+	 * @throws IllegalArgumentException
+	 *             if other is this sequence or of another kind
+	 */
+	void concatenate(EditSequence other) throws IllegalArgumentException;
+
+	/**
+	 *
+	 * @param s
+	 * @return the position of the first occurrence of s; -1 if s does not
+	 *         occur
+	 */
+	int find(String s);
+
+	/**
+	 *
+	 * @param s
+	 * @param pos
+	 * @return the position of the first occurrence of s at or after pos; -1 if
+	 *         there is none
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is negative or greater than size()
+	 */
+	int find(String s, int pos) throws IndexOutOfBoundsException;
+
+	/**
+	 *
+	 * @return all the characters of this sequence
+	 */
+	@Override
+	String toString();
+}
@@ -0,0 +1,77 @@
+package editortrees;
+
+// Makes EditSequences, picking the structure to suit the document: a piece
+// table for text that is mostly appended to, such as a log; an implicit treap
+// for text that is mostly cut up and pasted together; and EditTree, in
+// chunked leaf mode once the document is large, for ordinary editing.
+
+public final class EditSequences {
+
+	/**
+	 * The structures an EditSequence can be built on.
+	 */
+	public enum Backend {
+		AVL_TREE, TREAP, PIECE_TABLE
+	}
+
+	/**
+	 * What a document is mostly used for.
+	 */
+	public enum Workload {
+		APPEND, EDIT, RESTRUCTURE
+	}
+
+	// documents longer than this get an EditTree in chunked leaf mode
+	private static final int LARGE_DOCUMENT = 1 << 20;
+	private static final int LARGE_CHUNK = 256;
+
+	private EditSequences() {
+	}
+
+	/**
+	 *
+	 * @param workload
+	 * @return the backend that suits workload best
+	 */
+	public static Backend choose(Workload workload) {
+		switch (workload) {
+		case APPEND:
+			return Backend.PIECE_TABLE;
+		case RESTRUCTURE:
+			return Backend.TREAP;
+		default:
+			return Backend.AVL_TREE;
+		}
+	}
+
+	/**
+	 *
+	 * @param text
+	 * @param workload
+	 * @return a sequence holding text, built on the backend that suits
+	 *         workload best
+	 */
+	public static EditSequence forDocument(CharSequence text, Workload workload) {
+		return EditSequences.create(EditSequences.choose(workload), text);
+	}
+
+	/**
+	 *
+	 * @param backend
+	 * @param text
+	 * @return a sequence holding text, built on backend
+	 */
+	public static EditSequence create(Backend backend, CharSequence text) {
+		switch (backend) {
+		case TREAP:
+			return new TreapEditTree(text);
+		case PIECE_TABLE:
+			return new PieceTable(text);
+		default:
+			if (text.length() > LARGE_DOCUMENT) {
+				return new EditTree(text, LARGE_CHUNK);
+			}
+			return new EditTree(text);
+		}
+	}
+}
@@ -0,0 +1,2648 @@
+package editortrees;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import editortrees.EditMetrics.Operation;
+import editortrees.Node.Code;
+
+// A height-balanced binary tree with rank that could be the basis for a text editor. [Milestone 3 version]
+
+public class EditTree implements EditSequence {
+
+	private Node root;
+	public final static Node NULL_NODE = new Node();
+	private int numOfRotations;
+	private final int chunkSize; // characters per node; 1 unless the tree is in chunked leaf mode
+	private Node last;           // the rightmost node while a run of appends is going on, otherwise null
+	private int pendingTail;     // characters appended since last was set and not yet added to the
+	                             // sizes of its ancestors (the right spine)
+	private int pendingLines;    // '\n' characters among those, likewise not yet added to line counts
+	private EditJournal journal; // undo history, or null while history is off
+	private EditMetrics metrics; // counters of operations, or null while metrics are off
+	private Node finger;         // the node charAt last read from, or null
+	private int fingerStart;     // the position of its first character
+	private int version;         // bumped whenever nodes may have moved, so cursors know to find theirs again
+	private boolean gapLeaves;   // whether typing at one caret goes into a gap in the caret's chunk
+	private Node caret;          // the node whose chunk has an open gap, or null
+	private int caretPos;        // the position of the gap in this tree
+	private int gapStart;        // the gap is chunk[gapStart..gapEnd) of caret: the characters
+	private int gapEnd;          // before it come first, those from gapEnd to the end follow it
+	private int pendingCaret;    // characters typed into the gap, less those deleted, not yet added to
+	                             // the sizes of caret and its ancestors
+	private int pendingCaretLines; // '\n' characters among those, likewise not yet added to line counts
+	private int burstPos = -1;   // where the next edit of a burst of typing would fall
+	private EditJournal.Entry keeper; // the history entry that also keeps this tree, as returned by
+	                             // delete, until either of them would change it, or null
+
+	// strings of more nodes than this are built by the common ForkJoinPool
+	private static final int PARALLEL_BUILD = 1 << 16;
+	// characters decoded at a time by open, and bytes of the file mapped at a time
+	private static final int OPEN_WINDOW = 1 << 22;
+	private static final long MAP_REGION = 1L << 28;
+	// characters encoded at a time by save, and buffers gathered into one write
+	private static final int SAVE_WINDOW = 1 << 16;
+	private static final int SAVE_BUFFERS = 4;
+	// first varint of the binary form written by writeTo, and the flags of its nodes
+	private static final int FORMAT_MAGIC = 0x45540001; // "ET", version 1
+	private static final int CODE_MASK = 0x03; // Code ordinal
+	private static final int HAS_LEFT = 0x04;
+	private static final int HAS_RIGHT = 0x08;
+	private static final int HAS_CHUNK = 0x10;
+	// the largest chunk size readFrom accepts, as each chunk it reads is allocated whole
+	private static final int MAX_READ_CHUNK = 1 << 16;
+
+	/**
+	 * Construct an empty tree
+	 */
+	public EditTree() {
+		this.root = NULL_NODE;
+		this.numOfRotations = 0;
+		this.chunkSize = 1;
+	}
+
+	/**
+	 * Construct a single-node tree whose element is c
+	 *
+	 * @param c
+	 */
+	public EditTree(char c) {
+		this.root = new Node(c, 0);
+		this.numOfRotations = 0;
+		this.chunkSize = 1;
+	}
+
+	/**
+	 * Create an EditTree whose toString is s. This can be done in O(N) time,
+	 * where N is the length of the tree (repeatedly calling insert() would be
+	 * O(N log N), so you need to find a more efficient way to do this.
+	 *
+	 * @param s
+	 */
+	public EditTree(CharSequence s)
+	{
+		this(s, 1);
+	}
+
+	/**
+	 * Create an EditTree in chunked leaf mode whose toString is s. Each node
+	 * holds up to chunkSize characters and ranks count characters rather than
+	 * nodes, so the per-character cost of the tree is a small fraction of the
+	 * one-node-per-character layout.
+	 *
+	 * @param s
+	 * @param chunkSize
+	 *            maximum number of characters held by one node
+	 * @throws IllegalArgumentException
+	 *             if chunkSize is less than 1
+	 */
+	public EditTree(CharSequence s, int chunkSize) throws IllegalArgumentException
+	{
+		if(chunkSize<1)
+			throw new IllegalArgumentException("chunk size must be positive");
+		this.root=NULL_NODE;
+		this.numOfRotations=0;
+		this.chunkSize=chunkSize;
+		int nodes=(s.length()+chunkSize-1)/chunkSize;
+		if(nodes>PARALLEL_BUILD)
+			this.root=ForkJoinPool.commonPool().invoke(new BuildTask(s, 0, nodes, chunkSize));
+		else if(nodes>0)
+			this.root=buildTree(s, 0, nodes, chunkSize);
+	}
+
+	private EditTree(Node root, int chunkSize) {
+		this.root = root;
+		this.numOfRotations = 0;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Helper function for EditTree(CharSequence, int).
+	 * Recursively creates a balanced tree whose nodes hold the units first
+	 * (inclusive) to last (exclusive) of s, then returns the root node. A unit
+	 * is a character, or a chunk of chunkSize characters in chunked leaf mode.
+	 *
+	 * @param s
+	 * @return the root of the new tree
+	 */
+	private static Node buildTree(CharSequence s, int first, int last, int chunkSize)
+	{
+		int mid=(first+last)>>>1;
+		Node newNode=buildNode(s, first, mid, last, chunkSize);
+		if(mid>first)
+		{
+			newNode.left=buildTree(s, first, mid, chunkSize);
+			newNode.left.parent=newNode;
+		}
+		if(last>mid+1)
+		{
+			newNode.right=buildTree(s, mid+1, last, chunkSize);
+			newNode.right.parent=newNode;
+		}
+		newNode.updateSize();
+		return newNode;
+	}
+
+	/**
+	 * Creates the detached node for unit mid of the subtree holding units
+	 * first to last, leaving its size for the caller to set once its subtrees
+	 * are built. The left subtree of a built tree never has fewer nodes
+	 * than the right, nor more than one more, so a subtree of k nodes is
+	 * floor(log2 k) tall and the balance code follows from the counts alone.
+	 */
+	private static Node buildNode(CharSequence s, int first, int mid, int last, int chunkSize)
+	{
+		Node newNode;
+		if(chunkSize==1)
+		{
+			newNode=new Node(s.charAt(mid), mid-first);
+		}
+		else
+		{
+			int start=mid*chunkSize;
+			int end=Math.min(start+chunkSize, s.length());
+			char[] chunk=new char[chunkSize];
+			if(s instanceof String)
+				((String) s).getChars(start, end, chunk, 0);
+			else if(s instanceof CharBuffer && ((CharBuffer) s).hasArray())
+			{
+				CharBuffer buffer=(CharBuffer) s;
+				System.arraycopy(buffer.array(), buffer.arrayOffset()+buffer.position()+start, chunk, 0, end-start);
+			}
+			else
+				for(int i=start; i<end; i++)
+					chunk[i-start]=s.charAt(i);
+			newNode=new Node(chunk, end-start, (mid-first)*chunkSize);
+		}
+		int leftHeight=31-Integer.numberOfLeadingZeros(mid-first);
+		int rightHeight=31-Integer.numberOfLeadingZeros(last-mid-1);
+		newNode.height=leftHeight+1;
+		newNode.balance=(leftHeight>rightHeight) ? Code.LEFT : Code.SAME;
+		return newNode;
+	}
+
+	/**
+	 * Builds a subtree as buildTree does, handing its left half to another
+	 * worker of the pool while it builds the right half itself.
+	 */
+	private static final class BuildTask extends RecursiveTask<Node> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final CharSequence s;
+		private final int first, last, chunkSize;
+
+		BuildTask(CharSequence s, int first, int last, int chunkSize) {
+			this.s = s;
+			this.first = first;
+			this.last = last;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		protected Node compute() {
+			if (this.last - this.first <= PARALLEL_BUILD) {
+				return buildTree(this.s, this.first, this.last, this.chunkSize);
+			}
+			int mid = (this.first + this.last) >>> 1;
+			Node newNode = buildNode(this.s, this.first, mid, this.last, this.chunkSize);
+			BuildTask left = new BuildTask(this.s, this.first, mid, this.chunkSize);
+			left.fork();
+			newNode.right = new BuildTask(this.s, mid + 1, this.last, this.chunkSize).compute();
+			newNode.right.parent = newNode;
+			newNode.left = left.join();
+			newNode.left.parent = newNode;
+			newNode.updateSize();
+			return newNode;
+		}
+	}
+
+	/**
+	 * Make this tree be a copy of e, with all new nodes, but the same shape and
+	 * contents.
+	 *
+	 * @param e
+	 */
+	public EditTree(EditTree e)
+	{
+		e.flushTail();
+		if(e.root==NULL_NODE)
+		{
+			this.root=NULL_NODE;
+		}
+		else
+		{
+			this.root=e.root.copyTree();
+		}
+		this.numOfRotations=0;
+		this.chunkSize=e.chunkSize;
+	}
+
+	/**
+	 *
+	 * @return the height of this tree
+	 */
+	public int height() {
+		return this.root.height();
+	}
+
+	/**
+	 *
+	 * returns the total number of rotations done in this tree
+	 * since it was created.  A double rotation counts as two.
+	 *
+	 * @return number of rotations since tree was created.
+	 */
+	public int totalRotationCount() {
+		return this.numOfRotations;
+	}
+
+	/**
+	 * Starts keeping metrics on the operations of this tree: counts and
+	 * latency histograms for each kind of operation, the single and double
+	 * rotations each kind makes, and the current and greatest height. Each
+	 * operation costs two reads of System.nanoTime() more while metrics are
+	 * on.
+	 *
+	 * @return the metrics of this tree, which go on counting as it is used;
+	 *         the same ones if metrics were already on
+	 */
+	public EditMetrics enableMetrics() {
+		if (this.metrics == null) {
+			this.metrics = new EditMetrics(this.height());
+		}
+		return this.metrics;
+	}
+
+	/**
+	 * Stops keeping metrics. The object enableMetrics() returned keeps the
+	 * counts it had.
+	 */
+	public void disableMetrics() {
+		this.metrics = null;
+	}
+
+	/**
+	 *
+	 * @return the metrics of this tree, or null while metrics are off
+	 */
+	public EditMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	private void rotated(boolean isDouble) {
+		this.numOfRotations += isDouble ? 2 : 1;
+		if (this.metrics != null) {
+			this.metrics.rotated(isDouble);
+		}
+	}
+
+	private long begin(Operation operation) {
+		return (this.metrics == null) ? 0 : this.metrics.begin(operation);
+	}
+
+	private void end(Operation operation, long start) {
+		if (this.metrics != null) {
+			this.metrics.end(operation, start, this.height());
+		}
+	}
+
+	/**
+	 * return the string produced by an inorder traversal of this tree
+	 */
+	@Override
+	public String toString() {
+		this.settle();
+		char[] chars = new char[this.size()];
+		this.copyChars(0, chars.length, chars, 0);
+		return new String(chars);
+	}
+
+	/**
+	 * Copies characters from this tree into dst, in the manner of
+	 * String.getChars. Runs in O(log N + (srcEnd - srcBegin)).
+	 *
+	 * @param srcBegin
+	 *            position of the first character to copy
+	 * @param srcEnd
+	 *            position after the last character to copy
+	 * @param dst
+	 *            the destination array
+	 * @param dstBegin
+	 *            the start offset in dst
+	 * @throws IndexOutOfBoundsException
+	 *             if either range is out of bounds
+	 */
+	public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) throws IndexOutOfBoundsException {
+		if (srcBegin < 0 || srcBegin > srcEnd || srcEnd > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (dstBegin < 0 || dstBegin + (srcEnd - srcBegin) > dst.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		this.copyChars(srcBegin, srcEnd - srcBegin, dst, dstBegin);
+	}
+
+	/**
+	 * Appends the contents of this tree to out, in one inorder walk through a
+	 * small reused buffer, without building the whole string.
+	 *
+	 * @param out
+	 * @throws IOException
+	 *             if out throws one
+	 */
+	public void appendTo(Appendable out) throws IOException {
+		this.settle();
+		char[] buffer = new char[Math.min(this.size(), 8192)];
+		CharBuffer view = CharBuffer.wrap(buffer);
+		int filled = 0;
+		Node current = this.root == NULL_NODE ? NULL_NODE : this.root.leftmost();
+		while (current != NULL_NODE) {
+			int offset = 0;
+			while (offset < current.length()) {
+				if (filled == buffer.length) {
+					out.append(view, 0, filled);
+					filled = 0;
+				}
+				int n = Math.min(current.length() - offset, buffer.length - filled);
+				current.getChars(offset, n, buffer, filled);
+				offset += n;
+				filled += n;
+			}
+			current = current.successor();
+		}
+		if (filled > 0) {
+			out.append(view, 0, filled);
+		}
+	}
+
+	/**
+	 * Reads a tree from the file at path, decoding it with charset.
+	 *
+	 * @param path
+	 * @param charset
+	 * @return a tree holding the contents of the file
+	 * @throws IOException
+	 */
+	public static EditTree open(Path path, Charset charset) throws IOException {
+		return EditTree.open(path, charset, 1);
+	}
+
+	/**
+	 * Reads a tree in chunked leaf mode from the file at path, decoding it
+	 * with charset. Input that does not decode is replaced, as new String
+	 * would do. The file is mapped a region at a time and decoded into a
+	 * reused window; each full window is built into a balanced tree and
+	 * concatenated on, so the document is never held as one String or array.
+	 *
+	 * @param path
+	 * @param charset
+	 * @param chunkSize
+	 *            maximum number of characters held by one node
+	 * @return a tree holding the contents of the file
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             if chunkSize is less than 1
+	 */
+	public static EditTree open(Path path, Charset charset, int chunkSize) throws IOException, IllegalArgumentException {
+		EditTree tree = new EditTree("", chunkSize);
+		CharsetDecoder decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		// whole chunks to a window, so that only the last chunk can be short
+		CharBuffer window = CharBuffer.allocate(Math.max(1, OPEN_WINDOW / chunkSize) * chunkSize);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long position = 0;
+			boolean endOfInput = size <= MAP_REGION;
+			ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, MAP_REGION));
+			while (true) {
+				if (decoder.decode(in, window, endOfInput).isOverflow()) {
+					tree.appendWindow(window);
+				}
+				else if (endOfInput) {
+					break;
+				}
+				else {
+					// bytes of a character cut off by the end of the region are mapped again
+					position += in.position();
+					endOfInput = size - position <= MAP_REGION;
+					in = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, MAP_REGION));
+				}
+			}
+			while (decoder.flush(window).isOverflow()) {
+				tree.appendWindow(window);
+			}
+			tree.appendWindow(window);
+		}
+		return tree;
+	}
+
+	/**
+	 * Builds the characters in window into a tree, adds it to the end of this
+	 * one and empties window.
+	 */
+	private void appendWindow(CharBuffer window) {
+		window.flip();
+		this.join(new EditTree(window, this.chunkSize));
+		window.clear();
+	}
+
+	/**
+	 * Writes the contents of this tree to the file at path in UTF-8.
+	 *
+	 * @param path
+	 * @throws IOException
+	 */
+	public void save(Path path) throws IOException {
+		this.save(path, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes the contents of this tree to the file at path, encoded with
+	 * charset, replacing what the file held. Characters are copied out a
+	 * window at a time, encoded into a set of direct buffers and written with
+	 * one gathering write per set.
+	 *
+	 * @param path
+	 * @param charset
+	 * @throws IOException
+	 *             including CharacterCodingException if charset cannot
+	 *             encode a character of this tree
+	 */
+	public void save(Path path, Charset charset) throws IOException {
+		CharsetEncoder encoder = charset.newEncoder();
+		char[] chars = new char[SAVE_WINDOW];
+		CharBuffer in = CharBuffer.wrap(chars);
+		ByteBuffer[] out = new ByteBuffer[SAVE_BUFFERS];
+		for (int i = 0; i < out.length; i++) {
+			out[i] = ByteBuffer.allocateDirect(SAVE_WINDOW);
+		}
+		int current = 0; // index of the buffer being filled
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			int size = this.size();
+			int pos = 0;
+			boolean endOfInput = false;
+			while (true) {
+				// top the window up after whatever the last pass left, such as half a surrogate pair
+				int n = Math.min(chars.length - in.position(), size - pos);
+				this.copyChars(pos, n, chars, in.position());
+				pos += n;
+				in.limit(in.position() + n);
+				in.position(0);
+				endOfInput = pos == size;
+				CoderResult result;
+				while ((result = encoder.encode(in, out[current], endOfInput)).isOverflow()) {
+					current = EditTree.nextBuffer(channel, out, current);
+				}
+				if (result.isError()) {
+					result.throwException();
+				}
+				if (endOfInput) {
+					break;
+				}
+				in.compact();
+			}
+			while (encoder.flush(out[current]).isOverflow()) {
+				current = EditTree.nextBuffer(channel, out, current);
+			}
+			EditTree.write(channel, out, current + 1);
+		}
+	}
+
+	/**
+	 * Moves on from the full buffer out[current], first writing out the whole
+	 * set if it was the last one.
+	 *
+	 * @return the index of the buffer to fill next
+	 */
+	private static int nextBuffer(GatheringByteChannel channel, ByteBuffer[] out, int current) throws IOException {
+		if (current + 1 < out.length) {
+			return current + 1;
+		}
+		EditTree.write(channel, out, out.length);
+		return 0;
+	}
+
+	/**
+	 * Writes the first count buffers of out with gathering writes and clears
+	 * them.
+	 */
+	private static void write(GatheringByteChannel channel, ByteBuffer[] out, int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			out[i].flip();
+		}
+		while (out[count - 1].hasRemaining()) {
+			channel.write(out, 0, count);
+		}
+		for (int i = 0; i < count; i++) {
+			out[i].clear();
+		}
+	}
+
+	/**
+	 * Writes this tree, shape and all, to out in a compact binary form that
+	 * readFrom turns back into the same tree. After a header of FORMAT_MAGIC,
+	 * the chunk size and the length, the nodes follow in pre-order. Each is a
+	 * byte of flags (balance code, which children it has, whether it holds a
+	 * chunk), then its characters and its rank, all as unsigned varints.
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		this.flushTail();
+		VarintWriter writer = new VarintWriter(out);
+		writer.writeVarint(FORMAT_MAGIC);
+		writer.writeVarint(this.chunkSize);
+		writer.writeVarint(this.size());
+		if (this.root != NULL_NODE) {
+			EditTree.writeNode(this.root, writer);
+		}
+		writer.flush();
+	}
+
+	private static void writeNode(Node node, VarintWriter writer) throws IOException {
+		int flags = node.balance.ordinal();
+		if (node.left != NULL_NODE) {
+			flags |= HAS_LEFT;
+		}
+		if (node.right != NULL_NODE) {
+			flags |= HAS_RIGHT;
+		}
+		if (node.chunk != null) {
+			flags |= HAS_CHUNK;
+		}
+		writer.write(flags);
+		if (node.chunk == null) {
+			writer.writeVarint(node.element);
+		}
+		else {
+			writer.writeVarint(node.count);
+			for (int i = 0; i < node.count; i++) {
+				writer.writeVarint(node.chunk[i]);
+			}
+		}
+		writer.writeVarint(node.rank);
+		if (node.left != NULL_NODE) {
+			EditTree.writeNode(node.left, writer);
+		}
+		if (node.right != NULL_NODE) {
+			EditTree.writeNode(node.right, writer);
+		}
+	}
+
+	/**
+	 * Reads a tree written by writeTo, in O(N) and without a single rotation:
+	 * the nodes are linked up exactly as they were written, and only sizes and
+	 * heights are worked out on the way. in is read one byte at a time and no
+	 * further than the end of the tree, so several trees can follow one another
+	 * in a stream; give it a buffered stream.
+	 *
+	 * @param in
+	 * @return the tree read
+	 * @throws IOException
+	 *             if in does not hold a well-formed tree, or throws one, or
+	 *             the tree's chunk size is over 65536
+	 */
+	public static EditTree readFrom(InputStream in) throws IOException {
+		if (EditTree.readVarint(in) != FORMAT_MAGIC) {
+			throw new IOException("not a serialized EditTree");
+		}
+		int chunkSize = EditTree.readVarint(in);
+		int size = EditTree.readVarint(in);
+		if (chunkSize < 1 || chunkSize > MAX_READ_CHUNK) {
+			throw new IOException("bad chunk size " + chunkSize);
+		}
+		if (size < 0) {
+			throw new IOException("bad size " + size);
+		}
+		Node root = size == 0 ? NULL_NODE : EditTree.readNode(in, chunkSize, 0);
+		if (root.size != size) {
+			throw new IOException("tree holds " + root.size + " characters, header says " + size);
+		}
+		return new EditTree(root, chunkSize);
+	}
+
+	private static Node readNode(InputStream in, int chunkSize, int depth) throws IOException {
+		// no tree of fewer than 2^31 nodes that passes the checks below is this deep
+		if (depth > 48) {
+			throw new IOException("serialized tree too deep");
+		}
+		int flags = in.read();
+		if (flags < 0) {
+			throw new EOFException();
+		}
+		// chunked trees hold every character in a chunk and others none
+		if (((flags & HAS_CHUNK) != 0) != (chunkSize > 1)) {
+			throw new IOException("node layout does not match chunk size " + chunkSize);
+		}
+		Node node;
+		if ((flags & HAS_CHUNK) == 0) {
+			node = new Node((char) EditTree.readVarint(in), 0);
+		}
+		else {
+			int count = EditTree.readVarint(in);
+			if (count < 1 || count > chunkSize) {
+				throw new IOException("bad chunk length " + count);
+			}
+			char[] chunk = new char[chunkSize];
+			for (int i = 0; i < count; i++) {
+				chunk[i] = (char) EditTree.readVarint(in);
+			}
+			node = new Node(chunk, count, 0);
+		}
+		node.rank = EditTree.readVarint(in);
+		if ((flags & HAS_LEFT) != 0) {
+			node.left = EditTree.readNode(in, chunkSize, depth + 1);
+			node.left.parent = node;
+		}
+		if ((flags & HAS_RIGHT) != 0) {
+			node.right = EditTree.readNode(in, chunkSize, depth + 1);
+			node.right.parent = node;
+		}
+		node.updateSize();
+		node.updateBalance();
+		if (node.rank != node.left.size || node.balance.ordinal() != (flags & CODE_MASK)
+				|| Math.abs(node.left.height - node.right.height) > 1) {
+			throw new IOException("inconsistent node in serialized tree");
+		}
+		return node;
+	}
+
+	private static int readVarint(InputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.read();
+			if (b < 0) {
+				throw new EOFException();
+			}
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("varint too long");
+	}
+
+	/**
+	 * Buffers the bytes of writeTo so the stream is written in blocks.
+	 */
+	private static final class VarintWriter {
+
+		private final OutputStream out;
+		private final byte[] buffer;
+		private int filled;
+
+		VarintWriter(OutputStream out) {
+			this.out = out;
+			this.buffer = new byte[8192];
+			this.filled = 0;
+		}
+
+		void write(int b) throws IOException {
+			if (this.filled == this.buffer.length) {
+				this.flush();
+			}
+			this.buffer[this.filled++] = (byte) b;
+		}
+
+		/**
+		 * Writes value seven bits at a time, low bits first, setting the top
+		 * bit of every byte but the last.
+		 */
+		void writeVarint(int value) throws IOException {
+			while ((value & ~0x7F) != 0) {
+				this.write((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			this.write(value);
+		}
+
+		void flush() throws IOException {
+			this.out.write(this.buffer, 0, this.filled);
+			this.filled = 0;
+		}
+	}
+
+	/**
+	 *
+	 * @param pos
+	 *            position in the tree
+	 * @return the character at that position
+	 * @throws IndexOutOfBoundsException
+	 */
+	public char get(int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos >= this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		this.settle();
+		Node current = this.root;
+		int addRank = 0;
+		while (true) {
+			int start = current.rank + addRank;
+			if (pos < start) {
+				current = current.left;
+			}
+			else if (pos >= start + current.length()) {
+				addRank = start + current.length();
+				current = current.right;
+			}
+			else {
+				return current.charAt(pos - start);
+			}
+		}
+	}
+
+	/**
+	 * Same as size().
+	 */
+	@Override
+	public int length() {
+		return this.size();
+	}
+
+	/**
+	 * Same as get(index), but this tree keeps a finger on the node it read
+	 * from, so reading the character next to the last one read costs
+	 * amortized O(1) and a scan over the tree in either direction costs O(N)
+	 * in all. Any edit other than an append drops the finger. As it moves the
+	 * finger, charAt must not be called from two threads at once, unlike get.
+	 *
+	 * @param index
+	 * @throws IndexOutOfBoundsException
+	 */
+	@Override
+	public char charAt(int index) throws IndexOutOfBoundsException {
+		if (index < 0 || index >= this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		this.settle();
+		Node node = this.finger;
+		if (node != null) {
+			int offset = index - this.fingerStart;
+			if (offset >= 0 && offset < node.length()) {
+				return node.charAt(offset);
+			}
+			if (offset == node.length()) {
+				this.finger = node.successor();
+				this.fingerStart = index;
+				return this.finger.charAt(0);
+			}
+			if (offset == -1) {
+				this.finger = node.predecessor();
+				this.fingerStart = index - this.finger.length() + 1;
+				return this.finger.charAt(this.finger.length() - 1);
+			}
+		}
+		Node current = this.root;
+		int addRank = 0;
+		while (true) {
+			int start = current.rank + addRank;
+			if (index < start) {
+				current = current.left;
+			}
+			else if (index >= start + current.length()) {
+				addRank = start + current.length();
+				current = current.right;
+			}
+			else {
+				this.finger = current;
+				this.fingerStart = start;
+				return current.charAt(index - start);
+			}
+		}
+	}
+
+	/**
+	 * Runs in O(1): nothing is copied. The view reads through to this tree,
+	 * so it shows the characters that are at its positions when it is read.
+	 *
+	 * @param start
+	 * @param end
+	 * @return a view of the characters from start up to but not including end
+	 * @throws IndexOutOfBoundsException
+	 *             if start or end is out of range, or start > end
+	 */
+	@Override
+	public CharSequence subSequence(int start, int end) throws IndexOutOfBoundsException {
+		if (start < 0 || end > this.size() || start > end) {
+			throw new IndexOutOfBoundsException();
+		}
+		return new SubSequence(this, start, end - start);
+	}
+
+	/**
+	 * The characters of this tree as a stream, without copying them. The
+	 * stream splits along subtree boundaries, so parallel() streams work on
+	 * separate parts of the tree. This tree must not be changed until the
+	 * stream is done.
+	 */
+	@Override
+	public IntStream chars() {
+		return this.chars(0, this.size());
+	}
+
+	/**
+	 *
+	 * @return the characters from start up to but not including end as a
+	 *         stream, as for chars()
+	 */
+	IntStream chars(int start, int end) {
+		this.settle();
+		return StreamSupport.intStream(new CharSpliterator(this.root, 0, start, end), false);
+	}
+
+	/**
+	 * Runs in amortized O(1): the tree keeps a finger on its last node, only
+	 * the nodes whose balance actually changes are visited, and the sizes
+	 * along the right spine are brought up to date in one pass when the run
+	 * of appends ends.
+	 *
+	 * @param c
+	 *            character to add to the end of this tree.
+	 */
+	public void add(char c) {
+		long start = this.begin(Operation.ADD);
+		this.appendChar(c);
+		if (this.journal != null) {
+			this.journal.recordInsert(this.size() - 1, 1);
+		}
+		this.end(Operation.ADD, start);
+	}
+
+	private void appendChar(char c) {
+		this.unshare();
+		if (this.root == NULL_NODE) {
+			this.root = this.newNode(c);
+			return;
+		}
+		Node tail = this.tail();
+		if (tail.chunk != null && tail.count < tail.chunk.length) {
+			tail.chunk[tail.count++] = c;
+			this.pendingTail++;
+			if (c == '\n') {
+				tail.chunkLines++;
+				this.pendingLines++;
+			}
+		}
+		else {
+			this.attachTail(this.newNode(c));
+		}
+	}
+
+	/**
+	 * Appends len characters of buf, starting at index off, to the end of this
+	 * tree in amortized O(len). In chunked leaf mode whole chunks are copied at
+	 * a time.
+	 *
+	 * @param buf
+	 * @param off
+	 * @param len
+	 * @throws IndexOutOfBoundsException
+	 *             if off and len do not describe a range of buf
+	 */
+	public void append(char[] buf, int off, int len) throws IndexOutOfBoundsException {
+		if (off < 0 || len < 0 || off + len > buf.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return;
+		}
+		long start = this.begin(Operation.ADD);
+		if (this.journal != null) {
+			this.journal.recordInsert(this.size(), len);
+		}
+		if (this.chunkSize == 1) {
+			for (int i = off; i < off + len; i++) {
+				this.appendChar(buf[i]);
+			}
+		}
+		else {
+			this.appendChunks(buf, off, len);
+		}
+		this.end(Operation.ADD, start);
+	}
+
+	private void appendChunks(char[] buf, int off, int len) {
+		this.unshare();
+		int end = off + len;
+		while (off < end) {
+			Node tail = this.root == NULL_NODE ? null : this.tail();
+			if (tail != null && tail.chunk != null && tail.count < tail.chunk.length) {
+				int n = Math.min(tail.chunk.length - tail.count, end - off);
+				System.arraycopy(buf, off, tail.chunk, tail.count, n);
+				int lines = Node.countLines(tail.chunk, tail.count, tail.count + n);
+				tail.count += n;
+				tail.chunkLines += lines;
+				this.pendingTail += n;
+				this.pendingLines += lines;
+				off += n;
+			}
+			else {
+				int n = Math.min(this.chunkSize, end - off);
+				char[] chunk = new char[this.chunkSize];
+				System.arraycopy(buf, off, chunk, 0, n);
+				Node fresh = new Node(chunk, n, 0);
+				if (tail == null) {
+					this.root = fresh;
+				}
+				else {
+					this.attachTail(fresh);
+				}
+				off += n;
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @return the last node of this tree, which must not be empty
+	 */
+	private Node tail() {
+		if (this.last == null) {
+			this.settle();
+			this.last = this.root.rightmost();
+		}
+		return this.last;
+	}
+
+	/**
+	 * Links the detached node fresh in after the last node of this tree. The
+	 * sizes of the right spine are left to pendingTail: every node on it keeps
+	 * its true size minus pendingTail, which a single left rotation (the only
+	 * kind an append can cause) preserves. Line counts go the same way with
+	 * pendingLines.
+	 */
+	private void attachTail(Node fresh) {
+		Node tail = this.tail();
+		this.pendingTail += fresh.size;
+		fresh.size -= this.pendingTail;
+		this.pendingLines += fresh.lines;
+		fresh.lines -= this.pendingLines;
+		tail.right = fresh;
+		fresh.parent = tail;
+		this.last = fresh;
+		this.rebalanceAfterInsert(fresh);
+		this.resetRoot();
+	}
+
+	/**
+	 * Ends a run of appends, adding the characters appended so far to the
+	 * sizes along the right spine, closes the gap of a burst of typing, drops
+	 * the finger of charAt and tells cursors to find their nodes again.
+	 * Everything except appends, reads and typing at the caret calls this
+	 * first.
+	 */
+	private void flushTail() {
+		this.settle();
+		this.finger = null;
+		this.version++;
+		if (this.pendingTail != 0) {
+			Node current = this.last;
+			while (current != NULL_NODE) {
+				current.size += this.pendingTail;
+				current.lines += this.pendingLines;
+				current = current.parent;
+			}
+			this.pendingTail = 0;
+			this.pendingLines = 0;
+		}
+		this.last = null;
+	}
+
+	/**
+	 * Types c at pos into the gap of the caret's chunk, if pos is where the
+	 * gap is, or opens a gap there if pos is where the last edit of a burst
+	 * left off. Either way this costs O(1) apart from the opening: the sizes
+	 * of the caret's node and its ancestors are left to pendingCaret.
+	 *
+	 * @return false if c has to be inserted the ordinary way, because there
+	 *         is no burst at pos or the gap is full
+	 */
+	private boolean typeAtCaret(char c, int pos) {
+		if (this.caret == null && (pos != this.burstPos || !this.openCaret(pos))) {
+			return false;
+		}
+		if (pos != this.caretPos || this.gapStart == this.gapEnd) {
+			return false;
+		}
+		Node node = this.caret;
+		node.chunk[this.gapStart++] = c;
+		node.count++;
+		if (c == '\n') {
+			node.chunkLines++;
+			this.pendingCaretLines++;
+		}
+		this.pendingCaret++;
+		this.caretPos++;
+		this.burstPos = this.caretPos;
+		this.finger = null;
+		this.version++;
+		return true;
+	}
+
+	/**
+	 * A backspace deletes the character just before the gap, a forward
+	 * delete the one just after it, as long as that leaves the caret's node
+	 * a character.
+	 *
+	 * @return whether deleteAtCaret(pos) can delete the character at pos
+	 */
+	private boolean canDeleteAtCaret(int pos) {
+		if (this.caret == null) {
+			if (pos != this.burstPos && pos != this.burstPos - 1) {
+				return false;
+			}
+			if (!this.openCaret(this.burstPos)) {
+				return false;
+			}
+		}
+		Node node = this.caret;
+		if (node.count <= 1) {
+			return false;
+		}
+		if (pos == this.caretPos - 1) {
+			return this.gapStart > 0;
+		}
+		return pos == this.caretPos && this.gapEnd < node.chunk.length;
+	}
+
+	/**
+	 * Widens the gap over the character at pos, in O(1).
+	 *
+	 * @return the character deleted
+	 */
+	private char deleteAtCaret(int pos) {
+		Node node = this.caret;
+		char removed;
+		if (pos == this.caretPos - 1) {
+			removed = node.chunk[--this.gapStart];
+			this.caretPos--;
+		}
+		else {
+			removed = node.chunk[this.gapEnd++];
+		}
+		node.count--;
+		if (removed == '\n') {
+			node.chunkLines--;
+			this.pendingCaretLines--;
+		}
+		this.pendingCaret--;
+		this.burstPos = this.caretPos;
+		this.finger = null;
+		this.version++;
+		return removed;
+	}
+
+	/**
+	 * Opens a gap at pos in the chunk of the node holding the character
+	 * before pos (or the first character, at 0), moving the characters of the
+	 * chunk that follow pos to the end of its array. Runs in O(log N + k) for
+	 * a chunk of k characters; a burst of typing pays this once.
+	 *
+	 * @return false if gap leaves are off or that chunk is full
+	 */
+	private boolean openCaret(int pos) {
+		if (!this.gapLeaves || pos < 0 || pos > this.size() || this.root == NULL_NODE) {
+			return false;
+		}
+		this.unshare();
+		this.flushTail();
+		int target = (pos == 0) ? 0 : pos - 1;
+		Node current = this.root;
+		int addRank = 0;
+		while (true) {
+			int start = current.rank + addRank;
+			if (target < start) {
+				current = current.left;
+			}
+			else if (target >= start + current.length()) {
+				addRank = start + current.length();
+				current = current.right;
+			}
+			else {
+				char[] chunk = current.chunk;
+				if (chunk == null || current.count == chunk.length) {
+					return false;
+				}
+				int offset = pos - start;
+				int after = current.count - offset;
+				System.arraycopy(chunk, offset, chunk, chunk.length - after, after);
+				this.caret = current;
+				this.caretPos = pos;
+				this.gapStart = offset;
+				this.gapEnd = chunk.length - after;
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Closes the gap of a burst of typing, if one is open, and adds the
+	 * characters typed into it to the sizes and line counts of the caret's
+	 * node and its ancestors, in O(log N + k) for a chunk of k characters.
+	 * Reads and all other edits call this first.
+	 */
+	void settle() {
+		Node node = this.caret;
+		if (node == null) {
+			return;
+		}
+		char[] chunk = node.chunk;
+		System.arraycopy(chunk, this.gapEnd, chunk, this.gapStart, chunk.length - this.gapEnd);
+		node.size += this.pendingCaret;
+		node.lines += this.pendingCaretLines;
+		EditTree.adjustAncestors(node, this.pendingCaret, this.pendingCaretLines);
+		this.caret = null;
+		this.pendingCaret = 0;
+		this.pendingCaretLines = 0;
+	}
+
+	/**
+	 *
+	 * @param c
+	 *            character to add
+	 * @param pos
+	 *            character added in this inorder position
+	 * @throws IndexOutOfBoundsException
+	 *             id pos is negative or too large for this tree
+	 */
+	public void add(char c, int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		long start = this.begin(Operation.ADD);
+		if (!this.typeAtCaret(c, pos)) {
+			this.insert(c, pos);
+			this.burstPos = pos + 1;
+		}
+		if (this.journal != null) {
+			this.journal.recordInsert(pos, 1);
+		}
+		this.end(Operation.ADD, start);
+	}
+
+	private void insert(char c, int pos) {
+		if (pos == this.size()) {
+			this.appendChar(c);
+			return;
+		}
+		this.unshare();
+		this.flushTail();
+		// find the node whose characters span pos, counting its end position
+		Node current = this.root;
+		int addRank = 0;
+		while (true) {
+			int start = current.rank + addRank;
+			if (pos < start) {
+				current = current.left;
+			}
+			else if (pos > start + current.length()) {
+				addRank = start + current.length();
+				current = current.right;
+			}
+			else {
+				addRank = start;
+				break;
+			}
+		}
+		int offset = pos - addRank;
+		if (current.chunk == null) {
+			if (offset == 0) {
+				this.insertBefore(current, this.newNode(c));
+			}
+			else {
+				this.insertAfter(current, this.newNode(c));
+			}
+			return;
+		}
+		if (current.count == current.chunk.length) {
+			if (offset == current.count) {
+				this.insertAfter(current, this.newNode(c));
+				return;
+			}
+			Node tail = current.splitChunk(offset);
+			EditTree.adjustAncestors(current, -tail.count, -tail.lines);
+			this.insertAfter(current, tail);
+		}
+		current.insertChar(offset, c);
+		EditTree.adjustAncestors(current, 1, (c == '\n') ? 1 : 0);
+	}
+
+	/**
+	 * Inserts all of s so that its first character ends up at position pos.
+	 * A balanced tree is built from s in O(k) and spliced in with split and
+	 * concatenate, so the whole insertion takes O(k + log N), where k is the
+	 * length of s.
+	 *
+	 * @param s
+	 *            characters to add
+	 * @param pos
+	 *            position of the first added character
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is negative or too large for this tree
+	 */
+	public void add(CharSequence s, int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (s.length() == 0) {
+			return;
+		}
+		long start = this.begin(Operation.PASTE);
+		EditEvent event = new EditEvent();
+		event.begin();
+		int size = this.size();
+		this.splice(pos, new EditTree(s, this.chunkSize));
+		if (this.journal != null) {
+			this.journal.recordInsert(pos, s.length());
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.operation = "paste";
+			event.position = pos;
+			event.length = s.length();
+			event.treeSize = size;
+			event.commit();
+		}
+		this.end(Operation.PASTE, start);
+	}
+
+	/**
+	 * Puts all of text into this tree so that its first character ends up at
+	 * position pos, leaving text empty.
+	 */
+	private void splice(int pos, EditTree text) {
+		EditTree rest = this.splitOff(pos);
+		this.join(text);
+		this.join(rest);
+	}
+
+	/**
+	 * Takes the length characters starting at start out of this tree.
+	 *
+	 * @return a tree holding the characters taken out
+	 */
+	private EditTree cut(int start, int length) {
+		EditTree middle = this.splitOff(start);
+		this.join(middle.splitOff(length));
+		return middle;
+	}
+
+	/**
+	 *
+	 * @param c
+	 * @return a detached node holding c, shaped for this tree's mode
+	 */
+	private Node newNode(char c) {
+		if (this.chunkSize == 1) {
+			return new Node(c, 0);
+		}
+		char[] chunk = new char[this.chunkSize];
+		chunk[0] = c;
+		return new Node(chunk, 1, 0);
+	}
+
+	/**
+	 * Links the detached node fresh into the tree just before node in inorder,
+	 * then rebalances.
+	 */
+	private void insertBefore(Node node, Node fresh) {
+		if (node.left == NULL_NODE) {
+			this.attach(node, true, fresh);
+		}
+		else {
+			this.attach(node.left.rightmost(), false, fresh);
+		}
+	}
+
+	/**
+	 * Links the detached node fresh into the tree just after node in inorder,
+	 * then rebalances.
+	 */
+	private void insertAfter(Node node, Node fresh) {
+		if (node.right == NULL_NODE) {
+			this.attach(node, false, fresh);
+		}
+		else {
+			this.attach(node.right.leftmost(), true, fresh);
+		}
+	}
+
+	private void attach(Node parent, boolean asLeft, Node fresh) {
+		if (asLeft) {
+			parent.left = fresh;
+		}
+		else {
+			parent.right = fresh;
+		}
+		fresh.parent = parent;
+		EditTree.adjustAncestors(fresh, fresh.size, fresh.lines);
+		this.rebalanceAfterInsert(fresh);
+		this.resetRoot();
+	}
+
+	/**
+	 * Adds delta to the size of every ancestor of node, and to the rank of
+	 * those that have node in their left subtree, and lineDelta to their line
+	 * counts.
+	 */
+	private static void adjustAncestors(Node node, int delta, int lineDelta) {
+		Node child = node;
+		Node parent = node.parent;
+		while (parent != NULL_NODE) {
+			parent.size += delta;
+			parent.lines += lineDelta;
+			if (parent.left == child) {
+				parent.rank += delta;
+			}
+			child = parent;
+			parent = parent.parent;
+		}
+	}
+
+	/**
+	 * Walks up from child, whose subtree has just grown one level taller,
+	 * fixing balance codes and rotating where a node becomes unbalanced.
+	 */
+	private void rebalanceAfterInsert(Node child) {
+		Node parent = child.parent;
+		while (parent != NULL_NODE) {
+			if (parent.left == child) {
+				if (parent.balance == Code.RIGHT) {
+					parent.balance = Code.SAME;
+					return;
+				}
+				if (parent.balance == Code.SAME) {
+					parent.balance = Code.LEFT;
+					parent.height++;
+				}
+				else if (child.balance == Code.RIGHT) {
+					EditTree.doubleRightRotation(child, child.right);
+					this.rotated(true);
+					return;
+				}
+				else {
+					boolean stillTaller = child.balance == Code.SAME;
+					EditTree.singleRightRotation(parent, child);
+					this.rotated(false);
+					// a child with equal subtrees only comes from paste, and the
+					// rotated subtree is then still one level taller
+					if (!stillTaller) {
+						return;
+					}
+					parent = child;
+				}
+			}
+			else {
+				if (parent.balance == Code.LEFT) {
+					parent.balance = Code.SAME;
+					return;
+				}
+				if (parent.balance == Code.SAME) {
+					parent.balance = Code.RIGHT;
+					parent.height++;
+				}
+				else if (child.balance == Code.LEFT) {
+					EditTree.doubleLeftRotation(child, child.left);
+					this.rotated(true);
+					return;
+				}
+				else {
+					boolean stillTaller = child.balance == Code.SAME;
+					EditTree.singleLeftRotation(parent, child);
+					this.rotated(false);
+					if (!stillTaller) {
+						return;
+					}
+					parent = child;
+				}
+			}
+			child = parent;
+			parent = parent.parent;
+		}
+	}
+
+	/**
+	 * Walks up from parent, whose left (or right) subtree has just become one
+	 * level shorter, fixing balance codes and rotating where a node becomes
+	 * unbalanced.
+	 */
+	private void rebalanceAfterDelete(Node parent, boolean fromLeft) {
+		while (parent != NULL_NODE) {
+			Node top = parent;
+			if (fromLeft) {
+				if (parent.balance == Code.SAME) {
+					parent.balance = Code.RIGHT;
+					return;
+				}
+				if (parent.balance == Code.LEFT) {
+					parent.balance = Code.SAME;
+					parent.height--;
+				}
+				else {
+					Node sibling = parent.right;
+					if (sibling.balance == Code.LEFT) {
+						top = sibling.left;
+						EditTree.doubleLeftRotation(sibling, sibling.left);
+						this.rotated(true);
+					}
+					else {
+						Code siblingBalance = sibling.balance;
+						EditTree.singleLeftRotation(parent, sibling);
+						this.rotated(false);
+						if (siblingBalance == Code.SAME) {
+							return;
+						}
+						top = sibling;
+					}
+				}
+			}
+			else {
+				if (parent.balance == Code.SAME) {
+					parent.balance = Code.LEFT;
+					return;
+				}
+				if (parent.balance == Code.RIGHT) {
+					parent.balance = Code.SAME;
+					parent.height--;
+				}
+				else {
+					Node sibling = parent.left;
+					if (sibling.balance == Code.RIGHT) {
+						top = sibling.right;
+						EditTree.doubleRightRotation(sibling, sibling.right);
+						this.rotated(true);
+					}
+					else {
+						Code siblingBalance = sibling.balance;
+						EditTree.singleRightRotation(parent, sibling);
+						this.rotated(false);
+						if (siblingBalance == Code.SAME) {
+							return;
+						}
+						top = sibling;
+					}
+				}
+			}
+			parent = top.parent;
+			fromLeft = parent.left == top;
+		}
+	}
+
+	/**
+	 * Unlinks node from this tree, keeping ranks and balance up to date.
+	 */
+	private void removeNode(Node node) {
+		EditTree.adjustAncestors(node, -node.length(), -node.ownLines());
+		Node replacement;
+		Node retraceFrom;
+		boolean fromLeft;
+		if (node.left != NULL_NODE && node.right != NULL_NODE) {
+			// the inorder successor takes node's place
+			Node successor = node.right.leftmost();
+			Node child = successor;
+			Node parent = successor.parent;
+			while (parent != node) {
+				parent.size -= successor.length();
+				parent.lines -= successor.ownLines();
+				if (parent.left == child) {
+					parent.rank -= successor.length();
+				}
+				child = parent;
+				parent = parent.parent;
+			}
+			if (successor.parent == node) {
+				retraceFrom = successor;
+				fromLeft = false;
+			}
+			else {
+				retraceFrom = successor.parent;
+				fromLeft = true;
+				retraceFrom.left = successor.right;
+				if (successor.right != NULL_NODE) {
+					successor.right.parent = retraceFrom;
+				}
+				successor.right = node.right;
+				node.right.parent = successor;
+			}
+			successor.left = node.left;
+			node.left.parent = successor;
+			successor.rank = node.rank;
+			successor.size = node.size - node.length();
+			successor.lines = node.lines - node.ownLines();
+			successor.balance = node.balance;
+			successor.height = node.height;
+			replacement = successor;
+		}
+		else {
+			replacement = node.left != NULL_NODE ? node.left : node.right;
+			retraceFrom = node.parent;
+			fromLeft = node.parent.left == node;
+		}
+		if (node.parent == NULL_NODE) {
+			this.root = replacement;
+		}
+		else if (node.parent.left == node) {
+			node.parent.left = replacement;
+		}
+		else {
+			node.parent.right = replacement;
+		}
+		if (replacement != NULL_NODE) {
+			replacement.parent = node.parent;
+		}
+		node.left = NULL_NODE;
+		node.right = NULL_NODE;
+		node.parent = NULL_NODE;
+		this.rebalanceAfterDelete(retraceFrom, fromLeft);
+		this.resetRoot();
+	}
+
+	private void resetRoot() {
+		while (this.root != NULL_NODE && this.root.parent != NULL_NODE) {
+			this.root = this.root.parent;
+		}
+	}
+
+	/**
+	 * Runs in O(1), as the root keeps the size of the whole tree.
+	 *
+	 * @return the number of characters in this tree
+	 */
+	public int size() {
+		return this.root.size() + this.pendingTail + this.pendingCaret;
+	}
+
+	/**
+	 *
+	 * @param pos
+	 *            position of character to delete from this tree
+	 * @return the character that is deleted
+	 * @throws IndexOutOfBoundsException
+	 */
+	public char delete(int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos >= this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		long start = this.begin(Operation.DELETE);
+		char charDeleted;
+		if (this.canDeleteAtCaret(pos)) {
+			charDeleted = this.deleteAtCaret(pos);
+		}
+		else {
+			charDeleted = this.remove(pos);
+			this.burstPos = pos;
+		}
+		if (this.journal != null) {
+			this.journal.recordDelete(pos, charDeleted);
+		}
+		this.end(Operation.DELETE, start);
+		return charDeleted;
+	}
+
+	private char remove(int pos) {
+		this.unshare();
+		this.flushTail();
+		Node current = this.root;
+		int addRank = 0;
+		while (true) {
+			int start = current.rank + addRank;
+			if (pos < start) {
+				current = current.left;
+			}
+			else if (pos >= start + current.length()) {
+				addRank = start + current.length();
+				current = current.right;
+			}
+			else {
+				addRank = start;
+				break;
+			}
+		}
+		if (current.chunk == null) {
+			this.removeNode(current);
+			return current.element;
+		}
+		char charDeleted = current.removeChar(pos - addRank);
+		EditTree.adjustAncestors(current, -1, (charDeleted == '\n') ? -1 : 0);
+		if (current.count == 0) {
+			this.removeNode(current);
+		}
+		else if (current.count < current.chunk.length / 4) {
+			// fold a nearly empty chunk into its neighbor when it fits
+			Node next = current.successor();
+			if (next != NULL_NODE && next.chunk != null && next.count + current.count <= next.chunk.length) {
+				EditTree.adjustAncestors(next, current.count, current.chunkLines);
+				EditTree.adjustAncestors(current, -current.count, -current.chunkLines);
+				current.mergeInto(next);
+				this.removeNode(current);
+			}
+		}
+		return charDeleted;
+	}
+
+	/**
+	 * This method operates in O(length + log N), where N is the size of this
+	 * tree: it descends to pos once and then streams characters from an
+	 * inorder walk.
+	 *
+	 * @param pos
+	 *            location of the beginning of the string to retrieve
+	 * @param length
+	 *            length of the string to retrieve
+	 * @return string of length that starts in position pos
+	 * @throws IndexOutOfBoundsException
+	 *             unless both pos and pos+length-1 are legitimate indexes
+	 *             within this tree.
+	 */
+	public String get(int pos, int length) throws IndexOutOfBoundsException {
+		if(pos < 0 || length < 0 || pos + length > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		char[] result = new char[length];
+		this.copyChars(pos, length, result, 0);
+		return new String(result);
+	}
+
+	/**
+	 * Copies the length characters starting at pos into dst, starting at index
+	 * dstBegin. The range must be within this tree.
+	 */
+	private void copyChars(int pos, int length, char[] dst, int dstBegin) {
+		if (length == 0) {
+			return;
+		}
+		this.settle();
+		Node current = this.root;
+		int addRank = 0;
+		while (true) {
+			int start = current.rank + addRank;
+			if (pos < start) {
+				current = current.left;
+			}
+			else if (pos >= start + current.length()) {
+				addRank = start + current.length();
+				current = current.right;
+			}
+			else {
+				addRank = start;
+				break;
+			}
+		}
+		int offset = pos - addRank;
+		int copied = 0;
+		while (copied < length) {
+			int n = Math.min(current.length() - offset, length - copied);
+			current.getChars(offset, n, dst, dstBegin + copied);
+			copied += n;
+			offset = 0;
+			current = current.successor();
+		}
+	}
+
+	/**
+	 * Cuts the range out with two splits and a concatenate, each a join of
+	 * subtrees by height, so the whole delete takes O(log N).
+	 *
+	 * @param start
+	 *            position of beginning of string to delete
+	 *
+	 * @param length
+	 *            length of string to delete
+	 * @return an EditTree containing the deleted string, which is the
+	 *         caller's to change. While history is on, the history shares it
+	 *         to undo the delete with, and takes its own copy only if the
+	 *         caller changes it or the delete is undone first.
+	 * @throws IndexOutOfBoundsException
+	 *             if start or length is negative or start+length is greater
+	 *             than the size of this tree; a range that ends at the end of
+	 *             this tree is fine.
+	 */
+	public EditTree delete(int start, int length)
+			throws IndexOutOfBoundsException {
+		if (start < 0 || length < 0 || length > this.size() - start)
+			throw new IndexOutOfBoundsException(
+					(start < 0 || length < 0) ? "negative argument to delete"
+							: "delete range extends past end of string");
+		long begun = this.begin(Operation.DELETE);
+		EditTree t2 = this.cut(start, length);
+		if (this.journal != null && length > 0) {
+			t2.keeper = this.journal.recordDelete(start, t2);
+		}
+		this.end(Operation.DELETE, begun);
+		return t2;
+	}
+
+	/**
+	 * Makes a batch of edits whose positions are all given in the coordinates
+	 * of this tree before the batch, as from several cursors at once. The tree
+	 * is split at the middle edit and each half takes its own edits, so the
+	 * batch costs O(k log(N/k) + m) for k edits inserting m characters in all,
+	 * rather than k separate passes from the root. Edits at the same position
+	 * are made in list order; the batch is one step of the undo history.
+	 *
+	 * @param edits
+	 * @throws IndexOutOfBoundsException
+	 *             if an edit reaches past the end of this tree
+	 * @throws IllegalArgumentException
+	 *             if the deleted ranges of two edits overlap
+	 */
+	public void applyEdits(List<Edit> edits) throws IndexOutOfBoundsException, IllegalArgumentException {
+		Edit[] sorted = edits.toArray(new Edit[edits.size()]);
+		Arrays.sort(sorted, Comparator.comparingInt(Edit::getPosition));
+		for (int i = 0; i < sorted.length; i++) {
+			int end = sorted[i].getPosition() + sorted[i].getDeleteLength();
+			if (end > this.size()) {
+				throw new IndexOutOfBoundsException("edit extends past end of string: " + sorted[i]);
+			}
+			if (i + 1 < sorted.length && end > sorted[i + 1].getPosition()) {
+				throw new IllegalArgumentException("overlapping edits: " + sorted[i] + " and " + sorted[i + 1]);
+			}
+		}
+		long start = this.begin(Operation.APPLY_EDITS);
+		EditTree[] deleted = new EditTree[sorted.length];
+		this.applyEdits(sorted, 0, sorted.length, 0, deleted);
+		if (this.journal != null) {
+			this.journal.beginGroup();
+			int shift = 0;
+			for (int i = 0; i < sorted.length; i++) {
+				int pos = sorted[i].getPosition() + shift;
+				if (deleted[i].size() > 0) {
+					this.journal.recordDelete(pos, deleted[i]);
+				}
+				if (sorted[i].getInsertText().length() > 0) {
+					this.journal.recordInsert(pos, sorted[i].getInsertText().length());
+				}
+				shift += sorted[i].getInsertText().length() - sorted[i].getDeleteLength();
+			}
+			this.journal.endGroup();
+		}
+		this.end(Operation.APPLY_EDITS, start);
+	}
+
+	/**
+	 * Makes edits[from..to) on this tree, whose position 0 was position base
+	 * before the batch, keeping the characters each one deletes in deleted.
+	 */
+	private void applyEdits(Edit[] edits, int from, int to, int base, EditTree[] deleted) {
+		if (from == to) {
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		Edit edit = edits[mid];
+		// the trees split off rotate on this tree's behalf, so they count their
+		// rotations in its metrics and hand their totals back to it
+		EditTree middle = this.splitOff(edit.getPosition() - base);
+		middle.metrics = this.metrics;
+		EditTree rest = middle.splitOff(edit.getDeleteLength());
+		middle.metrics = null;
+		this.numOfRotations += middle.numOfRotations;
+		middle.numOfRotations = 0;
+		deleted[mid] = middle;
+		rest.metrics = this.metrics;
+		this.applyEdits(edits, from, mid, base, deleted);
+		rest.applyEdits(edits, mid + 1, to, edit.getPosition() + edit.getDeleteLength(), deleted);
+		if (edit.getInsertText().length() > 0) {
+			this.join(new EditTree(edit.getInsertText(), this.chunkSize));
+		}
+		this.join(rest);
+		this.numOfRotations += rest.numOfRotations;
+	}
+
+	/**
+	 * Append (in time proportional to the log of the size of the larger tree)
+	 * the contents of the other tree to this one. Other should be made empty
+	 * after this operation.
+	 *
+	 * @param other
+	 * @throws IllegalArgumentException
+	 *             if this == other
+	 */
+	public void concatenate(EditTree other) throws IllegalArgumentException {
+		if(this.equals(other)) {
+			throw new IllegalArgumentException();
+		}
+		long start = this.begin(Operation.CONCATENATE);
+		EditEvent event = new EditEvent();
+		event.begin();
+		int pos = this.size();
+		int length = other.size();
+		this.join(other);
+		if (other.journal != null) {
+			other.journal.clear();
+		}
+		if (this.journal != null && length > 0) {
+			this.journal.recordInsert(pos, length);
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.operation = "concatenate";
+			event.position = pos;
+			event.length = length;
+			event.treeSize = pos;
+			event.commit();
+		}
+		this.end(Operation.CONCATENATE, start);
+	}
+
+	/**
+	 * The same as concatenate(EditTree), for an EditTree seen as an
+	 * EditSequence.
+	 *
+	 * @param other
+	 * @throws IllegalArgumentException
+	 *             if other is this tree or not an EditTree
+	 */
+	@Override
+	public void concatenate(EditSequence other) throws IllegalArgumentException {
+		if (!(other instanceof EditTree)) {
+			throw new IllegalArgumentException();
+		}
+		this.concatenate((EditTree) other);
+	}
+
+	private void join(EditTree other) {
+		this.unshare();
+		other.unshare();
+		this.flushTail();
+		other.flushTail();
+		if(this.root == EditTree.NULL_NODE) {
+			this.root = other.root;
+			other.root = EditTree.NULL_NODE;
+			return;
+		}
+		if(other.root == EditTree.NULL_NODE) {
+			return;
+		}
+		// take the node that joins the two trees from the shorter one
+		Node q;
+		if(this.height() >= other.height()) {
+			q = other.root.leftmost();
+			EditMetrics metrics = other.metrics;
+			int rotations = other.numOfRotations;
+			other.metrics = this.metrics;
+			other.removeNode(q);
+			other.metrics = metrics;
+			// the rotations other made giving up q, like the others of the
+			// join, count as this tree's
+			this.numOfRotations += other.numOfRotations - rotations;
+			other.numOfRotations = rotations;
+		}
+		else {
+			q = this.root.rightmost();
+			this.removeNode(q);
+		}
+		this.root = this.paste(this.root, q, other.root);
+		other.root = EditTree.NULL_NODE;
+	}
+
+	/**
+	 * Joins the trees rooted at t and v with the detached node q between them.
+	 * The taller tree is walked down its inner spine to a subtree about as
+	 * tall as the shorter one, which becomes q's sibling. Heights are read
+	 * from the nodes, and rebalancing goes no higher than the walk came down,
+	 * so the join takes O(|h(t) - h(v)| + 1) and leaves a valid AVL tree.
+	 *
+	 * @return the root of the joined tree
+	 */
+	private Node paste(Node t, Node q, Node v) {
+		int ht = t.height();
+		int hv = v.height();
+		q.rank = t.size();
+		q.parent = NULL_NODE;
+		if(ht > hv + 1) {
+			Node p = t;
+			int added = q.length() + v.size();
+			int addedLines = q.ownLines() + v.lines;
+			while(p.height > hv + 1) {
+				p.size += added;
+				p.lines += addedLines;
+				p = p.right;
+			}
+			// p's parent is still on the right spine of t
+			Node parent = (p == NULL_NODE) ? t.rightmost() : p.parent;
+			q.rank = p.size();
+			q.left = p;
+			q.right = v;
+			q.updateSize();
+			EditTree.setParent(p, q);
+			EditTree.setParent(v, q);
+			q.updateBalance();
+			parent.right = q;
+			q.parent = parent;
+			this.rebalanceAfterInsert(q);
+			return EditTree.topOf(q);
+		}
+		if(hv > ht + 1) {
+			Node p = v;
+			int added = t.size() + q.length();
+			int addedLines = t.lines + q.ownLines();
+			while(p.height > ht + 1) {
+				p.rank += added;
+				p.size += added;
+				p.lines += addedLines;
+				p = p.left;
+			}
+			Node parent = (p == NULL_NODE) ? v.leftmost() : p.parent;
+			q.left = t;
+			q.right = p;
+			q.updateSize();
+			EditTree.setParent(t, q);
+			EditTree.setParent(p, q);
+			q.updateBalance();
+			parent.left = q;
+			q.parent = parent;
+			this.rebalanceAfterInsert(q);
+			return EditTree.topOf(q);
+		}
+		q.left = t;
+		q.right = v;
+		EditTree.setParent(t, q);
+		EditTree.setParent(v, q);
+		q.updateSize();
+		q.updateBalance();
+		return q;
+	}
+
+	private static void setParent(Node child, Node parent) {
+		if (child != NULL_NODE) {
+			child.parent = parent;
+		}
+	}
+
+	private static Node topOf(Node node) {
+		while (node.parent != NULL_NODE) {
+			node = node.parent;
+		}
+		return node;
+	}
+
+	/**
+	 * This operation must be done in time proportional to the height of this
+	 * tree.
+	 *
+	 * @param pos
+	 *            where to split this tree
+	 * @return a new tree containing all of the elements of this tree whose
+	 *         positions are >= position. Their nodes are removed from this
+	 *         tree. Splitting clears the history of this tree.
+	 * @throws IndexOutOfBoundsException
+	 */
+	public EditTree split(int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (this.journal != null) {
+			this.journal.clear();
+		}
+		long start = this.begin(Operation.SPLIT);
+		EditEvent event = new EditEvent();
+		event.begin();
+		int size = this.size();
+		EditTree rest = this.splitOff(pos);
+		event.end();
+		if (event.shouldCommit()) {
+			event.operation = "split";
+			event.position = pos;
+			event.length = size - pos;
+			event.treeSize = size;
+			event.commit();
+		}
+		this.end(Operation.SPLIT, start);
+		return rest;
+	}
+
+	private EditTree splitOff(int pos) {
+		this.unshare();
+		this.flushTail();
+		// a chunk that straddles pos is cut in two so that pos falls between nodes
+		Node current = this.root;
+		int addRank = 0;
+		while (current != NULL_NODE) {
+			int start = current.rank + addRank;
+			if (pos < start) {
+				current = current.left;
+			}
+			else if (pos >= start + current.length()) {
+				addRank = start + current.length();
+				current = current.right;
+			}
+			else {
+				if (pos > start) {
+					Node tail = current.splitChunk(pos - start);
+					EditTree.adjustAncestors(current, -tail.count, -tail.lines);
+					this.insertAfter(current, tail);
+				}
+				break;
+			}
+		}
+		// find the last node on the path to pos, then climb back up it through
+		// the parent links, cutting each node loose and pasting it, with the
+		// subtree on its far side, onto the half that grows on that side. Each
+		// paste costs the difference in height of what it joins, and those
+		// differences add up to no more than the height of the tree.
+		Node node = NULL_NODE;
+		boolean wentLeft = false;
+		current = this.root;
+		addRank = 0;
+		while (current != NULL_NODE) {
+			node = current;
+			int start = current.rank + addRank;
+			wentLeft = pos <= start;
+			if (wentLeft) {
+				current = current.left;
+			}
+			else {
+				addRank = start + current.length();
+				current = current.right;
+			}
+		}
+		Node left = NULL_NODE;
+		Node right = NULL_NODE;
+		while (node != NULL_NODE) {
+			Node parent = node.parent;
+			boolean parentWentLeft = parent.left == node;
+			// the child on the path is already part of a half
+			Node farChild = wentLeft ? node.right : node.left;
+			EditTree.setParent(farChild, NULL_NODE);
+			node.left = NULL_NODE;
+			node.right = NULL_NODE;
+			node.rank = 0;
+			node.size = node.length();
+			node.lines = node.ownLines();
+			node.height = 0;
+			node.balance = Code.SAME;
+			if (wentLeft) {
+				right = this.paste(right, node, farChild);
+			}
+			else {
+				left = this.paste(farChild, node, left);
+			}
+			node = parent;
+			wentLeft = parentWentLeft;
+		}
+		this.root = left;
+		return new EditTree(right, this.chunkSize);
+	}
+
+	/**
+	 * Runs in O(N + k), where k is the length of s, without copying the tree.
+	 *
+	 * @param s
+	 *            the string to look for
+	 * @return the position in this tree of the first occurrence of s; -1 if s
+	 *         does not occur
+	 */
+	public int find(String s)
+	{
+		return this.find(s, 0);
+	}
+
+	/**
+	 * Knuth-Morris-Pratt search over an inorder walk of the nodes from pos, so
+	 * that no character of the tree is read twice and nothing is copied. Runs
+	 * in O(log N + (N - pos) + k), where k is the length of s.
+	 *
+	 * @param s
+	 *            the string to search for
+	 * @param pos
+	 *            the position in the tree to begin the search
+	 * @return the position in this tree of the first occurrence of s that does
+	 *         not occur before position pos; -1 if s does not occur
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is negative or greater than the size of this tree
+	 */
+	public int find(String s, int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		long start = this.begin(Operation.FIND);
+		int found = this.search(s, pos);
+		this.end(Operation.FIND, start);
+		return found;
+	}
+
+	/**
+	 * Does the work of find(s, pos) for a valid pos without counting it in
+	 * the metrics, for readers that may run at the same time.
+	 */
+	int search(String s, int pos) {
+		int length = s.length();
+		if (length == 0) {
+			return pos;
+		}
+		if (this.size() - pos < length) {
+			return -1;
+		}
+		this.settle();
+		int[] failure = EditTree.failureTable(s);
+		Node current = this.root;
+		int addRank = 0;
+		while (true) {
+			int start = current.rank + addRank;
+			if (pos < start) {
+				current = current.left;
+			}
+			else if (pos >= start + current.length()) {
+				addRank = start + current.length();
+				current = current.right;
+			}
+			else {
+				addRank = start;
+				break;
+			}
+		}
+		int offset = pos - addRank;
+		int matched = 0;
+		while (current != NULL_NODE) {
+			for (; offset < current.length(); offset++, pos++) {
+				char c = current.charAt(offset);
+				while (matched > 0 && c != s.charAt(matched)) {
+					matched = failure[matched - 1];
+				}
+				if (c == s.charAt(matched)) {
+					matched++;
+					if (matched == length) {
+						return pos - length + 1;
+					}
+				}
+			}
+			offset = 0;
+			current = current.successor();
+		}
+		return -1;
+	}
+
+	/**
+	 * Runs in O(1), as every node keeps the number of '\n' characters in its
+	 * subtree.
+	 *
+	 * @return the number of lines in this tree, one more than the number of
+	 *         '\n' characters
+	 */
+	public int lineCount() {
+		return this.root.lines + this.pendingLines + this.pendingCaretLines + 1;
+	}
+
+	/**
+	 * Runs in O(log N), plus a scan of one chunk in chunked leaf mode. During
+	 * a run of appends only the line counts along the right spine lag behind,
+	 * and those are never read on the way down, since the counts of left
+	 * subtrees are enough.
+	 *
+	 * @param line
+	 *            a line number, counting from 0
+	 * @return the position of the first character of that line
+	 * @throws IndexOutOfBoundsException
+	 *             if line is negative or not less than lineCount()
+	 */
+	public int lineStart(int line) throws IndexOutOfBoundsException {
+		if (line < 0 || line >= this.lineCount()) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (line == 0) {
+			return 0;
+		}
+		this.settle();
+		// the line starts just after the line-th '\n'
+		Node current = this.root;
+		int addRank = 0;
+		int remaining = line;
+		while (true) {
+			int start = current.rank + addRank;
+			if (remaining <= current.left.lines) {
+				current = current.left;
+				continue;
+			}
+			remaining -= current.left.lines;
+			if (remaining <= current.ownLines()) {
+				if (current.chunk == null) {
+					return start + 1;
+				}
+				for (int i = 0; ; i++) {
+					if (current.chunk[i] == '\n' && --remaining == 0) {
+						return start + i + 1;
+					}
+				}
+			}
+			remaining -= current.ownLines();
+			addRank = start + current.length();
+			current = current.right;
+		}
+	}
+
+	/**
+	 * Runs in O(log N), plus a scan of one chunk in chunked leaf mode.
+	 *
+	 * @param pos
+	 *            a position in this tree, or its size
+	 * @return the number, counting from 0, of the line holding pos: the
+	 *         number of '\n' characters before pos
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is negative or greater than the size of this tree
+	 */
+	public int lineOf(int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		this.settle();
+		Node current = this.root;
+		int addRank = 0;
+		int line = 0;
+		while (current != NULL_NODE) {
+			int start = current.rank + addRank;
+			if (pos < start) {
+				current = current.left;
+			}
+			else if (pos >= start + current.length()) {
+				line += current.left.lines + current.ownLines();
+				addRank = start + current.length();
+				current = current.right;
+			}
+			else {
+				line += current.left.lines;
+				if (current.chunk != null) {
+					line += Node.countLines(current.chunk, 0, pos - start);
+				}
+				return line;
+			}
+		}
+		return line;
+	}
+
+	/**
+	 * Runs in O(log N + k), where k is the length of the line.
+	 *
+	 * @param line
+	 *            a line number, counting from 0
+	 * @return the characters of that line, without its '\n'
+	 * @throws IndexOutOfBoundsException
+	 *             if line is negative or not less than lineCount()
+	 */
+	public String getLine(int line) throws IndexOutOfBoundsException {
+		int start = this.lineStart(line);
+		int end = (line + 1 < this.lineCount()) ? this.lineStart(line + 1) - 1 : this.size();
+		return this.get(start, end - start);
+	}
+
+	/**
+	 * Builds the Knuth-Morris-Pratt failure table of s, which must not be
+	 * empty.
+	 *
+	 * @param s
+	 * @return failure, where failure[i] is the length of the longest proper
+	 *         border of s[0..i]
+	 */
+	static int[] failureTable(String s) {
+		int[] failure = new int[s.length()];
+		for (int i = 1, border = 0; i < s.length(); i++) {
+			while (border > 0 && s.charAt(i) != s.charAt(border)) {
+				border = failure[border - 1];
+			}
+			if (s.charAt(i) == s.charAt(border)) {
+				border++;
+			}
+			failure[i] = border;
+		}
+		return failure;
+	}
+
+	/**
+	 * Unlike getRoot(), this leaves a run of appends alone, so it never
+	 * changes the tree. While a run of appends is going on, the sizes along the
+	 * right spine are short by the characters appended; ranks are always right.
+	 *
+	 * @return the root of this tree
+	 */
+	Node peekRoot() {
+		return this.root;
+	}
+
+	/**
+	 *
+	 * @return a number that changes whenever an edit may have moved nodes;
+	 *         appends leave it alone, as they only add nodes after the others
+	 */
+	int version() {
+		return this.version;
+	}
+
+	/**
+	 * Makes a cursor for reading this tree forward or backward from pos. It
+	 * finds its node in O(log N) and then moves from node to node, so reading
+	 * k characters costs O(log N + k).
+	 *
+	 * @param pos
+	 * @return a cursor at pos
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is negative or greater than the size of this tree
+	 */
+	public Cursor cursor(int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		return new Cursor(this, pos);
+	}
+
+	/**
+	 * Turns gap leaves on or off. With them on, a burst of typing at one
+	 * caret, add(c, pos) at the position just after the last character typed
+	 * and delete(pos) on either side of it, writes into a gap kept open in
+	 * the chunk at the caret. Each keystroke is then an O(1) array write,
+	 * whatever the size of the tree; the sizes of the chunk's ancestors are
+	 * brought up to date, in O(log N), only when the burst ends, and when the
+	 * chunk fills it is split along the rank structure as usual. A burst ends
+	 * at the first other edit or read, so while gap leaves are on even reads
+	 * such as get must not be called from two threads at once.
+	 *
+	 * @param on
+	 * @throws IllegalArgumentException
+	 *             if on is true and this tree is not in chunked leaf mode
+	 */
+	public void setGapLeaves(boolean on) throws IllegalArgumentException {
+		if (on && this.chunkSize == 1) {
+			throw new IllegalArgumentException("gap leaves need chunked leaf mode");
+		}
+		if (!on) {
+			this.settle();
+		}
+		this.gapLeaves = on;
+	}
+
+	/**
+	 * Turns the undo history on, keeping it within limit, or off if limit is
+	 * 0. The history counts one for each edit it holds plus one for each
+	 * character it keeps for a delete, on the undo and redo sides alike; when
+	 * it outgrows limit the steps furthest ahead on the redo side are dropped,
+	 * then the oldest on the undo side. Changing the limit of a history that is already on keeps
+	 * what it holds, as far as it fits.
+	 *
+	 * @param limit
+	 * @throws IllegalArgumentException
+	 *             if limit is negative
+	 */
+	public void setHistoryLimit(int limit) throws IllegalArgumentException {
+		if (limit < 0) {
+			throw new IllegalArgumentException("history limit must not be negative");
+		}
+		if (limit == 0) {
+			if (this.journal != null) {
+				// frees the trees delete returned from sharing with the history
+				this.journal.clear();
+			}
+			this.journal = null;
+		}
+		else if (this.journal == null) {
+			this.journal = new EditJournal(limit);
+		}
+		else {
+			this.journal.setLimit(limit);
+		}
+	}
+
+	/**
+	 * Starts a group: the edits made until the matching endGroup() are undone
+	 * and redone as one step. Groups may nest, in which case the outermost one
+	 * makes the step.
+	 */
+	public void beginGroup() {
+		if (this.journal != null) {
+			this.journal.beginGroup();
+		}
+	}
+
+	/**
+	 * Ends the group started by the matching beginGroup().
+	 */
+	public void endGroup() {
+		if (this.journal != null) {
+			this.journal.endGroup();
+		}
+	}
+
+	/**
+	 *
+	 * @return true if there is a step to undo
+	 */
+	public boolean canUndo() {
+		return this.journal != null && this.journal.canUndo();
+	}
+
+	/**
+	 *
+	 * @return true if there is an undone step to redo
+	 */
+	public boolean canRedo() {
+		return this.journal != null && this.journal.canRedo();
+	}
+
+	/**
+	 * Reverts the last step of edits. Each edit in it costs one split and
+	 * concatenate, O(log N), or one add or delete.
+	 *
+	 * @return false if there was nothing to undo
+	 */
+	public boolean undo() {
+		if (!this.canUndo()) {
+			return false;
+		}
+		long start = this.begin(Operation.UNDO);
+		EditJournal.Entry entry;
+		do {
+			entry = this.journal.popUndo();
+			if (entry.insert) {
+				this.takeOut(entry);
+			}
+			else {
+				this.putBack(entry);
+			}
+			this.journal.pushRedo(entry);
+		} while (!entry.stepStart && this.journal.canUndo());
+		// the step may cost more undone than done
+		this.journal.trim();
+		this.end(Operation.UNDO, start);
+		return true;
+	}
+
+	/**
+	 * Makes the last undone step of edits again, in the same time as undo().
+	 *
+	 * @return false if there was nothing to redo
+	 */
+	public boolean redo() {
+		if (!this.canRedo()) {
+			return false;
+		}
+		long start = this.begin(Operation.REDO);
+		EditJournal.Entry entry = this.journal.popRedo(true);
+		while (entry != null) {
+			if (entry.insert) {
+				this.putBack(entry);
+			}
+			else {
+				this.takeOut(entry);
+			}
+			this.journal.pushUndo(entry);
+			entry = this.journal.popRedo(false);
+		}
+		this.journal.trim();
+		this.end(Operation.REDO, start);
+		return true;
+	}
+
+	/**
+	 * Removes the characters of entry from this tree, keeping them in entry.
+	 */
+	private void takeOut(EditJournal.Entry entry) {
+		if (entry.length == 1) {
+			entry.c = this.remove(entry.pos);
+		}
+		else {
+			entry.text = this.cut(entry.pos, entry.length);
+		}
+	}
+
+	/**
+	 * Puts the characters kept in entry back into this tree. A tree that
+	 * delete also returned is copied rather than emptied.
+	 *
+	 * @throws IllegalStateException
+	 *             if the kept characters are no longer the ones taken out, in
+	 *             which case the history is cleared
+	 */
+	private void putBack(EditJournal.Entry entry) throws IllegalStateException {
+		if (entry.text == null) {
+			this.insert(entry.c, entry.pos);
+			return;
+		}
+		EditTree text = entry.text;
+		entry.text = null;
+		if (text.size() != entry.length) {
+			this.journal.clear();
+			throw new IllegalStateException("deleted text changed while history kept it");
+		}
+		if (text.keeper == entry) {
+			text.keeper = null;
+			text = new EditTree(text);
+		}
+		this.splice(entry.pos, text);
+	}
+
+	/**
+	 * Hands the history entry that shares this tree a copy of it, so this
+	 * tree can be changed. Runs in O(1) unless the tree is shared, and every
+	 * change to the tree starts with it.
+	 */
+	private void unshare() {
+		EditJournal.Entry entry = this.keeper;
+		if (entry == null) {
+			return;
+		}
+		this.keeper = null;
+		if (entry.text == this) {
+			entry.text = new EditTree(this);
+		}
+	}
+
+	/**
+	 * @return The root of this tree.
+	 */
+	public Node getRoot() {
+		this.flushTail();
+		return this.root;
+	}
+
+	public static void singleLeftRotation(Node parent, Node child) {
+		Node grandparent = parent.parent;
+		parent.right = child.left;
+		EditTree.setParent(child.left, parent);
+		child.left = parent;
+		parent.parent = child;
+		child.parent = grandparent;
+		if(grandparent != EditTree.NULL_NODE) {
+			if(grandparent.right == parent) {
+				grandparent.right = child;
+			}
+			else {
+				grandparent.left = child;
+			}
+		}
+		//parent is now below child, so its balance code goes first
+		parent.updateBalance();
+		child.updateBalance();
+		parent.updateSize();
+		child.updateSize();
+		child.rank = child.left.size();
+	}
+
+	public static void singleRightRotation(Node parent, Node child) {
+		Node grandparent = parent.parent;
+		parent.left = child.right;
+		EditTree.setParent(child.right, parent);
+		child.right = parent;
+		parent.parent = child;
+		child.parent = grandparent;
+		if(grandparent != EditTree.NULL_NODE) {
+			if(grandparent.right == parent) {
+				grandparent.right = child;
+			}
+			else {
+				grandparent.left = child;
+			}
+		}
+		//parent is now below child, so its balance code goes first
+		parent.updateBalance();
+		child.updateBalance();
+		parent.updateSize();
+		child.updateSize();
+		parent.rank = parent.left.size();
+	}
+
+	/**
+	 * Rotates child (the right child of parent) up twice, so that it takes the
+	 * place of parent's parent.
+	 */
+	public static void doubleRightRotation(Node parent, Node child) {
+		Node grandparent = parent.parent;
+		EditTree.singleLeftRotation(parent, child);
+		EditTree.singleRightRotation(grandparent, child);
+	}
+
+	/**
+	 * Rotates child (the left child of parent) up twice, so that it takes the
+	 * place of parent's parent.
+	 */
+	public static void doubleLeftRotation(Node parent, Node child) {
+		Node grandparent = parent.parent;
+		EditTree.singleRightRotation(parent, child);
+		EditTree.singleLeftRotation(grandparent, child);
+	}
+
+	public String inOrder() {
+		return this.toString();
+	}
+}
@@ -0,0 +1,415 @@
+package editortrees;
+
+// A node in a height-balanced binary tree with rank. [Milestone 3 version]
+// Except for the NULL_sNODE (if you choose to use one), one node cannot
+// belong to two different trees.
+
+public class Node {
+
+	enum Code {SAME, LEFT, RIGHT};
+
+	// The fields would normally be private, but for the purposes of this class,
+	// we want to be able to test the results of the algorithms in addition to the
+	// "publicly visible" effects
+
+	char element;
+	Node left, right; // subtrees
+	int rank;         // number of characters in the left subtree (inorder position within its own subtree).
+	Code balance;
+	Node parent;  // You may want this field.
+	char[] chunk;     // characters held by this node in chunked leaf mode, null otherwise
+	int count;        // number of characters of chunk in use
+	int size;         // number of characters in this subtree
+	int height;       // height of this subtree; -1 for NULL_NODE
+	int lines;        // number of '\n' characters in this subtree
+	int chunkLines;   // number of '\n' characters in chunk
+
+	public Node() {
+		this.element = ' ';
+		this.left = null;
+		this.right = null;
+		this.rank = -1;
+		this.size = 0;
+		this.height = -1;
+		this.lines = 0;
+		this.balance = null;
+		this.parent = EditTree.NULL_NODE;
+	}
+
+	public Node(char c, int rank) {
+		this.element = c;
+		this.left = EditTree.NULL_NODE;
+		this.right = EditTree.NULL_NODE;
+		this.rank = rank;
+		this.size = 1;
+		this.height = 0;
+		this.lines = (c == '\n') ? 1 : 0;
+		this.balance = Code.SAME;
+		this.parent = EditTree.NULL_NODE;
+	}
+
+	/**
+	 * Creates a chunked leaf node holding the first count characters of chunk.
+	 * The array is used as the node's buffer, so its length is the capacity of
+	 * the node.
+	 *
+	 * @param chunk
+	 * @param count
+	 * @param rank
+	 */
+	public Node(char[] chunk, int count, int rank) {
+		this(chunk[0], rank);
+		this.chunk = chunk;
+		this.count = count;
+		this.size = count;
+		this.chunkLines = Node.countLines(chunk, 0, count);
+		this.lines = this.chunkLines;
+	}
+
+	/**
+	 *
+	 * @return the number of '\n' characters in chars[from..to)
+	 */
+	static int countLines(char[] chars, int from, int to) {
+		int lines = 0;
+		for (int i = from; i < to; i++) {
+			if (chars[i] == '\n') {
+				lines++;
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Runs in O(1); the height is kept up to date by every change to the tree.
+	 *
+	 * @return the height of this subtree
+	 */
+	public int height() {
+		return this.height;
+	}
+
+	/**
+	 * Runs in O(1); the count is kept up to date by every change to the tree.
+	 *
+	 * @return the number of characters in this subtree
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Sets this node's size and line count from those of its subtrees.
+	 */
+	public void updateSize() {
+		this.size = this.left.size + this.length() + this.right.size;
+		this.lines = this.left.lines + this.ownLines() + this.right.lines;
+	}
+
+	/**
+	 *
+	 * @return the number of '\n' characters held by this node
+	 */
+	public int ownLines() {
+		if (this.chunk == null) {
+			return (this.element == '\n') ? 1 : 0;
+		}
+		return this.chunkLines;
+	}
+
+	/**
+	 *
+	 * @return the number of characters held by this node
+	 */
+	public int length() {
+		return this.chunk == null ? 1 : this.count;
+	}
+
+	/**
+	 *
+	 * @param offset
+	 *            position of a character within this node
+	 * @return the character at that position
+	 */
+	public char charAt(int offset) {
+		if (this.chunk == null) {
+			return this.element;
+		}
+		return this.chunk[offset];
+	}
+
+	/**
+	 * Inserts c at the given offset of this node's chunk. The chunk must have
+	 * room for it.
+	 *
+	 * @param offset
+	 * @param c
+	 */
+	public void insertChar(int offset, char c) {
+		System.arraycopy(this.chunk, offset, this.chunk, offset + 1, this.count - offset);
+		this.chunk[offset] = c;
+		this.count++;
+		this.size++;
+		if (c == '\n') {
+			this.chunkLines++;
+			this.lines++;
+		}
+	}
+
+	/**
+	 * Removes the character at the given offset of this node's chunk.
+	 *
+	 * @param offset
+	 * @return the character removed
+	 */
+	public char removeChar(int offset) {
+		char removed = this.chunk[offset];
+		System.arraycopy(this.chunk, offset + 1, this.chunk, offset, this.count - offset - 1);
+		this.count--;
+		this.size--;
+		if (removed == '\n') {
+			this.chunkLines--;
+			this.lines--;
+		}
+		return removed;
+	}
+
+	/**
+	 * Moves the characters of this chunk from offset onwards into a new,
+	 * detached node with the same capacity.
+	 *
+	 * @param offset
+	 * @return the new node
+	 */
+	public Node splitChunk(int offset) {
+		char[] tail = new char[this.chunk.length];
+		int moved = this.count - offset;
+		System.arraycopy(this.chunk, offset, tail, 0, moved);
+		this.count = offset;
+		this.size -= moved;
+		Node next = new Node(tail, moved, 0);
+		this.chunkLines -= next.chunkLines;
+		this.lines -= next.chunkLines;
+		return next;
+	}
+
+	/**
+	 * Moves all the characters of this chunk to the front of next's chunk,
+	 * which must have room for them.
+	 *
+	 * @param next
+	 */
+	public void mergeInto(Node next) {
+		System.arraycopy(next.chunk, 0, next.chunk, this.count, next.count);
+		System.arraycopy(this.chunk, 0, next.chunk, 0, this.count);
+		next.count += this.count;
+		next.size += this.count;
+		next.chunkLines += this.chunkLines;
+		next.lines += this.chunkLines;
+		this.size -= this.count;
+		this.lines -= this.chunkLines;
+		this.count = 0;
+		this.chunkLines = 0;
+	}
+
+	/**
+	 *
+	 * @return the first node in an inorder traversal of this subtree
+	 */
+	public Node leftmost() {
+		Node current = this;
+		while (current.left != EditTree.NULL_NODE) {
+			current = current.left;
+		}
+		return current;
+	}
+
+	/**
+	 *
+	 * @return the last node in an inorder traversal of this subtree
+	 */
+	public Node rightmost() {
+		Node current = this;
+		while (current.right != EditTree.NULL_NODE) {
+			current = current.right;
+		}
+		return current;
+	}
+
+	/**
+	 *
+	 * @return the node after this one in an inorder traversal of its tree,
+	 *         or NULL_NODE if this is the last one
+	 */
+	public Node successor() {
+		if (this.right != EditTree.NULL_NODE) {
+			return this.right.leftmost();
+		}
+		Node current = this;
+		while (current.parent != EditTree.NULL_NODE && current.parent.right == current) {
+			current = current.parent;
+		}
+		return current.parent;
+	}
+
+	/**
+	 *
+	 * @return the node before this one in an inorder traversal of its tree,
+	 *         or NULL_NODE if this is the first one
+	 */
+	public Node predecessor() {
+		if (this.left != EditTree.NULL_NODE) {
+			return this.left.rightmost();
+		}
+		Node current = this;
+		while (current.parent != EditTree.NULL_NODE && current.parent.left == current) {
+			current = current.parent;
+		}
+		return current.parent;
+	}
+
+	/**
+	 * Descends in a loop from this node, whose subtree starts at position
+	 * addRank, to the character at pos.
+	 *
+	 * @param pos
+	 * @param addRank
+	 * @return the character at pos
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is not within this subtree
+	 */
+	public char get(int pos, int addRank) throws IndexOutOfBoundsException {
+		if(pos < addRank) {
+			throw new IndexOutOfBoundsException();
+		}
+		Node current = this;
+		while(current != EditTree.NULL_NODE) {
+			int start = current.rank + addRank;
+			if(pos < start) {
+				current = current.left;
+			}
+			else if(pos >= start + current.length()) {
+				addRank = start + current.length();
+				current = current.right;
+			}
+			else {
+				return current.charAt(pos - start);
+			}
+		}
+		throw new IndexOutOfBoundsException();
+	}
+
+	/**
+	 * Copies length characters of this node, starting at offset, into dst
+	 * starting at index dstBegin.
+	 */
+	public void getChars(int offset, int length, char[] dst, int dstBegin) {
+		if (this.chunk == null) {
+			dst[dstBegin] = this.element;
+		}
+		else {
+			System.arraycopy(this.chunk, offset, dst, dstBegin, length);
+		}
+	}
+
+	/**
+	 * Sets this node's height and balance code from the heights of its
+	 * subtrees.
+	 */
+	public void updateBalance() {
+		int leftHeight = this.left.height;
+		int rightHeight = this.right.height;
+		if(leftHeight > rightHeight) {
+			this.balance = Code.LEFT;
+			this.height = leftHeight + 1;
+		}
+		else if(leftHeight < rightHeight) {
+			this.balance = Code.RIGHT;
+			this.height = rightHeight + 1;
+		}
+		else {
+			this.balance = Code.SAME;
+			this.height = leftHeight + 1;
+		}
+	}
+
+	@Override
+	public String toString() {
+		if (this.chunk != null) {
+			return new String(this.chunk, 0, this.count);
+		}
+		return Character.toString(this.element);
+	}
+
+	public void inOrder(int addRank) {
+		if (this == EditTree.NULL_NODE) {
+			return;
+		}
+		// the successor walk has to stop at the end of this subtree
+		Node last = this.rightmost();
+		Node current = this.leftmost();
+		int pos = addRank;
+		while (true) {
+			System.out.print(pos + "'" + current + "' ");
+			if (current == last) {
+				return;
+			}
+			pos += current.length();
+			current = current.successor();
+		}
+	}
+
+	/**
+	 * Copies the subtree rooted at this node, which must not be NULL_NODE, in
+	 * preorder. The walk goes down the child links of the original and back
+	 * up the parent links of both trees, so it needs no stack however the
+	 * subtree is shaped.
+	 *
+	 * @return the root of the copy, with no parent
+	 */
+	public Node copyTree() {
+		Node copy = this.copyNode();
+		Node from = this;
+		Node to = copy;
+		while (true) {
+			if (from.left != EditTree.NULL_NODE && to.left == EditTree.NULL_NODE) {
+				to.left = from.left.copyNode();
+				to.left.parent = to;
+				from = from.left;
+				to = to.left;
+			}
+			else if (from.right != EditTree.NULL_NODE && to.right == EditTree.NULL_NODE) {
+				to.right = from.right.copyNode();
+				to.right.parent = to;
+				from = from.right;
+				to = to.right;
+			}
+			else if (from == this) {
+				return copy;
+			}
+			else {
+				from = from.parent;
+				to = to.parent;
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @return a detached node with the same fields as this one
+	 */
+	private Node copyNode() {
+		Node copy = new Node(this.element, this.rank);
+		copy.balance = this.balance;
+		copy.size = this.size;
+		copy.height = this.height;
+		copy.lines = this.lines;
+		if (this.chunk != null) {
+			copy.chunk = this.chunk.clone();
+			copy.count = this.count;
+			copy.chunkLines = this.chunkLines;
+		}
+		return copy;
+	}
+
+}
@@ -0,0 +1,92 @@
+package editortrees;
+
+import java.util.Arrays;
+
+// Storage for the nodes of ArenaEditTrees: one slot per node across parallel
+// primitive arrays, in place of Node objects. Slot 0 is the sentinel that plays
+// the part of EditTree.NULL_NODE. Each tree has an arena of its own, so the
+// slots of nodes it gives up are always free for its own reuse.
+
+class NodeArena {
+
+	static final byte SAME = 0;
+	static final byte LEFT = 1;
+	static final byte RIGHT = 2;
+
+	int[] left, right, parent; // slot numbers, 0 for none
+	int[] rank;                // number of nodes in the left subtree
+	int[] size;                // number of nodes in this subtree
+	char[] element;
+	byte[] balance;            // SAME, LEFT or RIGHT
+	byte[] height;             // height of this subtree; -1 for the sentinel
+
+	private int used; // slots handed out so far, including the sentinel
+	private int free; // first slot of the free list, chained through right; 0 if empty
+
+	NodeArena(int capacity) {
+		capacity = Math.max(capacity, 2);
+		this.left = new int[capacity];
+		this.right = new int[capacity];
+		this.parent = new int[capacity];
+		this.rank = new int[capacity];
+		this.size = new int[capacity];
+		this.element = new char[capacity];
+		this.balance = new byte[capacity];
+		this.height = new byte[capacity];
+		this.height[0] = -1;
+		this.used = 1;
+		this.free = 0;
+	}
+
+	/**
+	 * Hands out a slot for a new, detached leaf holding c, reusing a released
+	 * slot if there is one.
+	 *
+	 * @param c
+	 * @return the slot of the new node
+	 */
+	int allocate(char c) {
+		int node;
+		if (this.free != 0) {
+			node = this.free;
+			this.free = this.right[node];
+		}
+		else {
+			if (this.used == this.left.length) {
+				this.grow();
+			}
+			node = this.used++;
+		}
+		this.left[node] = 0;
+		this.right[node] = 0;
+		this.parent[node] = 0;
+		this.rank[node] = 0;
+		this.size[node] = 1;
+		this.element[node] = c;
+		this.balance[node] = SAME;
+		this.height[node] = 0;
+		return node;
+	}
+
+	/**
+	 * Puts a slot whose node has been unlinked from its tree on the free list.
+	 *
+	 * @param node
+	 */
+	void release(int node) {
+		this.right[node] = this.free;
+		this.free = node;
+	}
+
+	private void grow() {
+		int capacity = this.left.length + (this.left.length >> 1);
+		this.left = Arrays.copyOf(this.left, capacity);
+		this.right = Arrays.copyOf(this.right, capacity);
+		this.parent = Arrays.copyOf(this.parent, capacity);
+		this.rank = Arrays.copyOf(this.rank, capacity);
+		this.size = Arrays.copyOf(this.size, capacity);
+		this.element = Arrays.copyOf(this.element, capacity);
+		this.balance = Arrays.copyOf(this.balance, capacity);
+		this.height = Arrays.copyOf(this.height, capacity);
+	}
+}
@@ -0,0 +1,532 @@
+package editortrees;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+
+// A height-balanced binary tree with rank with the same operations as EditTree,
+// built from immutable PersistentNodes. Every edit copies just the O(log N)
+// nodes on the path it changes and shares the rest, so snapshot() is O(1) and
+// a snapshot stays readable, from any thread, while the tree it was taken from
+// keeps changing. Every node holds one character.
+
+public class PersistentEditTree {
+
+	static final PersistentNode NULL_NODE = new PersistentNode();
+
+	private PersistentNode root;
+	private int numOfRotations;
+
+	/**
+	 * Construct an empty tree
+	 */
+	public PersistentEditTree() {
+		this.root = NULL_NODE;
+		this.numOfRotations = 0;
+	}
+
+	/**
+	 * Construct a single-node tree whose element is c
+	 *
+	 * @param c
+	 */
+	public PersistentEditTree(char c) {
+		this.root = new PersistentNode(NULL_NODE, c, NULL_NODE);
+		this.numOfRotations = 0;
+	}
+
+	/**
+	 * Create a tree whose toString is s, in O(N) time.
+	 *
+	 * @param s
+	 */
+	public PersistentEditTree(String s) {
+		this.root = buildTree(s, 0, s.length());
+		this.numOfRotations = 0;
+	}
+
+	/**
+	 * Make this tree have the same contents as e, in O(1) time. The two trees
+	 * share their nodes and can be changed independently afterwards.
+	 *
+	 * @param e
+	 */
+	public PersistentEditTree(PersistentEditTree e) {
+		this.root = e.root;
+		this.numOfRotations = 0;
+	}
+
+	private PersistentEditTree(PersistentNode root) {
+		this.root = root;
+		this.numOfRotations = 0;
+	}
+
+	/**
+	 * Recursively creates a balanced tree holding the characters of s from
+	 * index from (inclusive) to to (exclusive), then returns its root.
+	 */
+	private static PersistentNode buildTree(CharSequence s, int from, int to) {
+		if (from == to) {
+			return NULL_NODE;
+		}
+		int mid = from + (to - from) / 2;
+		return new PersistentNode(buildTree(s, from, mid), s.charAt(mid), buildTree(s, mid + 1, to));
+	}
+
+	/**
+	 * Takes an O(1) snapshot of this tree. Later changes to either tree do not
+	 * show up in the other.
+	 *
+	 * @return a tree with the current contents of this one
+	 */
+	public PersistentEditTree snapshot() {
+		return new PersistentEditTree(this);
+	}
+
+	/**
+	 *
+	 * @return the height of this tree
+	 */
+	public int height() {
+		return this.root.height;
+	}
+
+	/**
+	 *
+	 * returns the total number of rotations done in this tree
+	 * since it was created.  A double rotation counts as two.
+	 *
+	 * @return number of rotations since tree was created.
+	 */
+	public int totalRotationCount() {
+		return this.numOfRotations;
+	}
+
+	/**
+	 *
+	 * @return the number of nodes in this tree
+	 */
+	public int size() {
+		return this.root.size;
+	}
+
+	/**
+	 * return the string produced by an inorder traversal of this tree
+	 */
+	@Override
+	public String toString() {
+		char[] chars = new char[this.size()];
+		copyChars(this.root, 0, chars.length, chars, 0);
+		return new String(chars);
+	}
+
+	/**
+	 * Copies characters from this tree into dst, in the manner of
+	 * String.getChars.
+	 *
+	 * @param srcBegin
+	 *            position of the first character to copy
+	 * @param srcEnd
+	 *            position after the last character to copy
+	 * @param dst
+	 *            the destination array
+	 * @param dstBegin
+	 *            the start offset in dst
+	 * @throws IndexOutOfBoundsException
+	 *             if either range is out of bounds
+	 */
+	public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) throws IndexOutOfBoundsException {
+		if (srcBegin < 0 || srcBegin > srcEnd || srcEnd > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (dstBegin < 0 || dstBegin + (srcEnd - srcBegin) > dst.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		copyChars(this.root, srcBegin, srcEnd, dst, dstBegin - srcBegin);
+	}
+
+	/**
+	 * Appends the contents of this tree to out, without building the whole
+	 * string.
+	 *
+	 * @param out
+	 * @throws IOException
+	 *             if out throws one
+	 */
+	public void appendTo(Appendable out) throws IOException {
+		PersistentNode version = this.root;
+		char[] buffer = new char[Math.min(version.size, 8192)];
+		CharBuffer view = CharBuffer.wrap(buffer);
+		for (int pos = 0; pos < version.size; pos += buffer.length) {
+			int n = Math.min(buffer.length, version.size - pos);
+			copyChars(version, pos, pos + n, buffer, -pos);
+			out.append(view, 0, n);
+		}
+	}
+
+	/**
+	 * Copies the characters at positions from (inclusive) to to (exclusive)
+	 * of the subtree rooted at node into dst, putting position p at index
+	 * base + p. Runs in O(log N + (to - from)).
+	 */
+	private static void copyChars(PersistentNode node, int from, int to, char[] dst, int base) {
+		if (node == NULL_NODE || from >= to) {
+			return;
+		}
+		int rank = node.rank();
+		if (from < rank) {
+			copyChars(node.left, from, Math.min(to, rank), dst, base);
+		}
+		if (from <= rank && rank < to) {
+			dst[base + rank] = node.element;
+		}
+		if (to > rank + 1) {
+			copyChars(node.right, Math.max(from - rank - 1, 0), to - rank - 1, dst, base + rank + 1);
+		}
+	}
+
+	/**
+	 *
+	 * @param pos
+	 *            position in the tree
+	 * @return the character at that position
+	 * @throws IndexOutOfBoundsException
+	 */
+	public char get(int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos >= this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		PersistentNode current = this.root;
+		while (pos != current.rank()) {
+			if (pos < current.rank()) {
+				current = current.left;
+			}
+			else {
+				pos -= current.rank() + 1;
+				current = current.right;
+			}
+		}
+		return current.element;
+	}
+
+	/**
+	 * Runs in O(length + log N).
+	 *
+	 * @param pos
+	 *            location of the beginning of the string to retrieve
+	 * @param length
+	 *            length of the string to retrieve
+	 * @return string of length that starts in position pos
+	 * @throws IndexOutOfBoundsException
+	 *             unless both pos and pos+length-1 are legitimate indexes
+	 *             within this tree.
+	 */
+	public String get(int pos, int length) throws IndexOutOfBoundsException {
+		if (pos < 0 || length < 0 || pos + length > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		char[] result = new char[length];
+		copyChars(this.root, pos, pos + length, result, -pos);
+		return new String(result);
+	}
+
+	/**
+	 *
+	 * @param c
+	 *            character to add to the end of this tree.
+	 */
+	public void add(char c) {
+		this.add(c, this.size());
+	}
+
+	/**
+	 *
+	 * @param c
+	 *            character to add
+	 * @param pos
+	 *            character added in this inorder position
+	 * @throws IndexOutOfBoundsException
+	 *             id pos is negative or too large for this tree
+	 */
+	public void add(char c, int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		this.root = this.add(this.root, c, pos);
+	}
+
+	private PersistentNode add(PersistentNode node, char c, int pos) {
+		if (node == NULL_NODE) {
+			return new PersistentNode(NULL_NODE, c, NULL_NODE);
+		}
+		if (pos <= node.rank()) {
+			return this.balance(this.add(node.left, c, pos), node.element, node.right);
+		}
+		return this.balance(node.left, node.element, this.add(node.right, c, pos - node.rank() - 1));
+	}
+
+	/**
+	 * Inserts all of s so that its first character ends up at position pos, in
+	 * O(k + log N) where k is the length of s.
+	 *
+	 * @param s
+	 *            characters to add
+	 * @param pos
+	 *            position of the first added character
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is negative or too large for this tree
+	 */
+	public void add(CharSequence s, int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		PersistentNode[] halves = this.split(this.root, pos);
+		PersistentNode inserted = buildTree(s, 0, s.length());
+		this.root = this.concatenate(this.concatenate(halves[0], inserted), halves[1]);
+	}
+
+	/**
+	 *
+	 * @param pos
+	 *            position of character to delete from this tree
+	 * @return the character that is deleted
+	 * @throws IndexOutOfBoundsException
+	 */
+	public char delete(int pos) throws IndexOutOfBoundsException {
+		char charDeleted = this.get(pos);
+		this.root = this.delete(this.root, pos);
+		return charDeleted;
+	}
+
+	private PersistentNode delete(PersistentNode node, int pos) {
+		if (pos < node.rank()) {
+			return this.balance(this.delete(node.left, pos), node.element, node.right);
+		}
+		if (pos > node.rank()) {
+			return this.balance(node.left, node.element, this.delete(node.right, pos - node.rank() - 1));
+		}
+		if (node.left == NULL_NODE) {
+			return node.right;
+		}
+		if (node.right == NULL_NODE) {
+			return node.left;
+		}
+		// the inorder successor takes node's place
+		PersistentNode successor = node.right;
+		while (successor.left != NULL_NODE) {
+			successor = successor.left;
+		}
+		return this.balance(node.left, successor.element, this.delete(node.right, 0));
+	}
+
+	/**
+	 * Deletes length characters starting at start with split and concatenate.
+	 *
+	 * @param start
+	 *            position of beginning of string to delete
+	 *
+	 * @param length
+	 *            length of string to delete
+	 * @return a tree containing the deleted string
+	 * @throws IndexOutOfBoundsException
+	 *             if start or length is negative or start+length is greater
+	 *             than the size of this tree; a range that ends at the end of
+	 *             this tree is fine.
+	 */
+	public PersistentEditTree delete(int start, int length)
+			throws IndexOutOfBoundsException {
+		if (start < 0 || length < 0 || length > this.size() - start)
+			throw new IndexOutOfBoundsException(
+					(start < 0 || length < 0) ? "negative argument to delete"
+							: "delete range extends past end of string");
+		PersistentEditTree t2 = this.split(start);
+		PersistentEditTree t3 = t2.split(length);
+		this.concatenate(t3);
+		return t2;
+	}
+
+	/**
+	 * Append the contents of the other tree to this one in O(log N), leaving
+	 * other empty. Snapshots of either tree are unaffected.
+	 *
+	 * @param other
+	 * @throws IllegalArgumentException
+	 *             if this == other
+	 */
+	public void concatenate(PersistentEditTree other) throws IllegalArgumentException {
+		if (this == other) {
+			throw new IllegalArgumentException();
+		}
+		this.root = this.concatenate(this.root, other.root);
+		other.root = NULL_NODE;
+	}
+
+	private PersistentNode concatenate(PersistentNode t, PersistentNode v) {
+		if (t == NULL_NODE) {
+			return v;
+		}
+		if (v == NULL_NODE) {
+			return t;
+		}
+		PersistentNode first = v;
+		while (first.left != NULL_NODE) {
+			first = first.left;
+		}
+		return this.paste(t, first.element, this.delete(v, 0));
+	}
+
+	/**
+	 * Joins t and v with a new node holding c between them. The taller tree
+	 * is walked down its inner spine to a subtree about as tall as the
+	 * shorter one, and the path back up is rebuilt and rebalanced.
+	 *
+	 * @return the root of the joined tree
+	 */
+	private PersistentNode paste(PersistentNode t, char c, PersistentNode v) {
+		if (t.height > v.height + 1) {
+			return this.balance(t.left, t.element, this.paste(t.right, c, v));
+		}
+		if (v.height > t.height + 1) {
+			return this.balance(this.paste(t, c, v.left), v.element, v.right);
+		}
+		return new PersistentNode(t, c, v);
+	}
+
+	/**
+	 * Runs in time proportional to the height of this tree. Snapshots of this
+	 * tree are unaffected.
+	 *
+	 * @param pos
+	 *            where to split this tree
+	 * @return a new tree containing all of the elements of this tree whose
+	 *         positions are >= position. They are removed from this tree.
+	 * @throws IndexOutOfBoundsException
+	 */
+	public PersistentEditTree split(int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		PersistentNode[] halves = this.split(this.root, pos);
+		this.root = halves[0];
+		return new PersistentEditTree(halves[1]);
+	}
+
+	private PersistentNode[] split(PersistentNode node, int pos) {
+		if (node == NULL_NODE) {
+			return new PersistentNode[] {NULL_NODE, NULL_NODE};
+		}
+		if (pos <= node.rank()) {
+			PersistentNode[] halves = this.split(node.left, pos);
+			halves[1] = this.paste(halves[1], node.element, node.right);
+			return halves;
+		}
+		PersistentNode[] halves = this.split(node.right, pos - node.rank() - 1);
+		halves[0] = this.paste(node.left, node.element, halves[0]);
+		return halves;
+	}
+
+	/**
+	 *
+	 * @param s
+	 *            the string to look for
+	 * @return the position in this tree of the first occurrence of s; -1 if s
+	 *         does not occur
+	 */
+	public int find(String s) {
+		return this.find(s, 0);
+	}
+
+	/**
+	 * Knuth-Morris-Pratt search over an inorder walk from pos, kept on an
+	 * explicit stack since the nodes have no parent links.
+	 *
+	 * @param s
+	 *            the string to search for
+	 * @param pos
+	 *            the position in the tree to begin the search
+	 * @return the position in this tree of the first occurrence of s that does
+	 *         not occur before position pos; -1 if s does not occur
+	 * @throws IndexOutOfBoundsException
+	 *             if pos is negative or greater than the size of this tree
+	 */
+	public int find(String s, int pos) throws IndexOutOfBoundsException {
+		PersistentNode version = this.root;
+		if (pos < 0 || pos > version.size) {
+			throw new IndexOutOfBoundsException();
+		}
+		int length = s.length();
+		if (length == 0) {
+			return pos;
+		}
+		if (version.size - pos < length) {
+			return -1;
+		}
+		int[] failure = EditTree.failureTable(s);
+		// the stack holds the nodes still to be visited, the next one on top
+		PersistentNode[] stack = new PersistentNode[version.height + 1];
+		int depth = 0;
+		PersistentNode current = version;
+		int offset = pos;
+		while (current != NULL_NODE) {
+			if (offset <= current.rank()) {
+				stack[depth++] = current;
+				if (offset == current.rank()) {
+					break;
+				}
+				current = current.left;
+			}
+			else {
+				offset -= current.rank() + 1;
+				current = current.right;
+			}
+		}
+		int matched = 0;
+		while (depth > 0) {
+			current = stack[--depth];
+			char c = current.element;
+			while (matched > 0 && c != s.charAt(matched)) {
+				matched = failure[matched - 1];
+			}
+			if (c == s.charAt(matched)) {
+				matched++;
+				if (matched == length) {
+					return pos - length + 1;
+				}
+			}
+			pos++;
+			for (PersistentNode next = current.right; next != NULL_NODE; next = next.left) {
+				stack[depth++] = next;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Builds a node holding c over left and right, rotating once or twice if
+	 * their heights differ by two.
+	 *
+	 * @return the root of the new subtree
+	 */
+	private PersistentNode balance(PersistentNode left, char c, PersistentNode right) {
+		if (left.height > right.height + 1) {
+			if (left.left.height >= left.right.height) {
+				this.numOfRotations++;
+				return new PersistentNode(left.left, left.element, new PersistentNode(left.right, c, right));
+			}
+			PersistentNode middle = left.right;
+			this.numOfRotations += 2;
+			return new PersistentNode(new PersistentNode(left.left, left.element, middle.left), middle.element,
+					new PersistentNode(middle.right, c, right));
+		}
+		if (right.height > left.height + 1) {
+			if (right.right.height >= right.left.height) {
+				this.numOfRotations++;
+				return new PersistentNode(new PersistentNode(left, c, right.left), right.element, right.right);
+			}
+			PersistentNode middle = right.left;
+			this.numOfRotations += 2;
+			return new PersistentNode(new PersistentNode(left, c, middle.left), middle.element,
+					new PersistentNode(middle.right, right.element, right.right));
+		}
+		return new PersistentNode(left, c, right);
+	}
+}
@@ -0,0 +1,42 @@
+package editortrees;
+
+// An immutable node of a PersistentEditTree. A node never changes once built,
+// so any number of tree versions can share it; edits build new nodes along the
+// path they change instead. There are no parent links, since a shared node
+// has a different parent in each version.
+
+final class PersistentNode {
+
+	final char element;
+	final PersistentNode left, right; // subtrees
+	final int size;                   // number of nodes in this subtree
+	final int height;                 // height of this subtree; -1 for NULL_NODE
+
+	/**
+	 * Creates the empty tree, PersistentEditTree.NULL_NODE.
+	 */
+	PersistentNode() {
+		this.element = ' ';
+		this.left = null;
+		this.right = null;
+		this.size = 0;
+		this.height = -1;
+	}
+
+	PersistentNode(PersistentNode left, char element, PersistentNode right) {
+		this.element = element;
+		this.left = left;
+		this.right = right;
+		this.size = left.size + 1 + right.size;
+		this.height = Math.max(left.height, right.height) + 1;
+	}
+
+	/**
+	 *
+	 * @return the rank of this node: its inorder position within its own
+	 *         subtree
+	 */
+	int rank() {
+		return this.left.size;
+	}
+}
@@ -0,0 +1,57 @@
+package editortrees;
+
+// A node of the index tree of a PieceTable: a run of length characters of
+// buffer starting at start, plus what a treap node keeps, a random priority
+// in heap order and the number of characters in its subtree.
+
+final class Piece {
+
+	final CharSequence buffer; // the original text or the add buffer
+	final int start;
+	int length;                // grows while typing goes on at the piece's end
+	final int priority;
+	Piece left, right;         // subtrees
+	int size;                  // number of characters in this subtree
+
+	/**
+	 * Creates the empty tree, PieceTable.NULL_PIECE.
+	 */
+	Piece() {
+		this.buffer = "";
+		this.start = 0;
+		this.priority = Integer.MIN_VALUE;
+	}
+
+	Piece(CharSequence buffer, int start, int length, int priority) {
+		this.buffer = buffer;
+		this.start = start;
+		this.length = length;
+		this.priority = priority;
+		this.left = PieceTable.NULL_PIECE;
+		this.right = PieceTable.NULL_PIECE;
+		this.size = length;
+	}
+
+	void updateSize() {
+		this.size = this.left.size + this.length + this.right.size;
+	}
+
+	/**
+	 * Copies count characters of this piece, starting at offset, into dst
+	 * starting at index dstBegin.
+	 */
+	void getChars(int offset, int count, char[] dst, int dstBegin) {
+		int from = this.start + offset;
+		if (this.buffer instanceof String) {
+			((String) this.buffer).getChars(from, from + count, dst, dstBegin);
+		}
+		else if (this.buffer instanceof StringBuilder) {
+			((StringBuilder) this.buffer).getChars(from, from + count, dst, dstBegin);
+		}
+		else {
+			for (int i = 0; i < count; i++) {
+				dst[dstBegin + i] = this.buffer.charAt(from + i);
+			}
+		}
+	}
+}
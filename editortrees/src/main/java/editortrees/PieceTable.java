@@ -0,0 +1,393 @@
+package editortrees;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ThreadLocalRandom;
+
+// A piece table with the operations of EditTree. The text is never changed in
+// place: it is the original buffer, which is never written, and an add buffer
+// that is only appended to, and the document is a sequence of pieces, runs of
+// one buffer or the other. The pieces are kept in a treap indexed by
+// character position, so finding a position costs expected O(log P) for P
+// pieces however long the pieces are. Typing at one place, and appending,
+// only lengthens the last piece added, so a log that is appended to stays at
+// two pieces.
+
+public class PieceTable implements EditSequence {
+
+	static final Piece NULL_PIECE = new Piece();
+
+	private Piece root;
+	private final StringBuilder added; // the add buffer, shared with the tables split off this one
+	private Piece rest; // the second half made by the last split(piece, pos)
+	private Piece tail; // the back of a piece that split cut in two, until it joins rest
+
+	/**
+	 * Construct an empty table
+	 */
+	public PieceTable() {
+		this.root = NULL_PIECE;
+		this.added = new StringBuilder();
+	}
+
+	/**
+	 * Makes s the original buffer, as one piece. A String is kept as it is;
+	 * anything else is copied once.
+	 *
+	 * @param s
+	 */
+	public PieceTable(CharSequence s) {
+		this();
+		if (s.length() > 0) {
+			this.root = PieceTable.newPiece(s.toString(), 0, s.length());
+		}
+	}
+
+	private PieceTable(Piece root, StringBuilder added) {
+		this.root = root;
+		this.added = added;
+	}
+
+	/**
+	 *
+	 * @return the number of pieces the text is made of
+	 */
+	public int pieceCount() {
+		return PieceTable.count(this.root);
+	}
+
+	private static int count(Piece piece) {
+		int count = 0;
+		while (piece != NULL_PIECE) {
+			count += 1 + PieceTable.count(piece.left);
+			piece = piece.right;
+		}
+		return count;
+	}
+
+	@Override
+	public int size() {
+		return this.root.size;
+	}
+
+	@Override
+	public int length() {
+		return this.root.size;
+	}
+
+	@Override
+	public char get(int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos >= this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		Piece current = this.root;
+		while (true) {
+			int start = current.left.size;
+			if (pos < start) {
+				current = current.left;
+			}
+			else if (pos >= start + current.length) {
+				pos -= start + current.length;
+				current = current.right;
+			}
+			else {
+				return current.buffer.charAt(current.start + pos - start);
+			}
+		}
+	}
+
+	@Override
+	public char charAt(int index) throws IndexOutOfBoundsException {
+		return this.get(index);
+	}
+
+	/**
+	 * Runs in O(length + log P), copying a piece at a time.
+	 */
+	@Override
+	public String get(int pos, int length) throws IndexOutOfBoundsException {
+		if (pos < 0 || length < 0 || length > this.size() - pos) {
+			throw new IndexOutOfBoundsException();
+		}
+		char[] result = new char[length];
+		PieceTable.copy(this.root, 0, pos, pos + length, result);
+		return new String(result);
+	}
+
+	/**
+	 * Copies the characters from position from up to to that are in the
+	 * subtree at piece, whose first character is at position base, into dst
+	 * starting at index 0 for position from.
+	 */
+	private static void copy(Piece piece, int base, int from, int to, char[] dst) {
+		while (piece != NULL_PIECE && base < to && from < base + piece.size) {
+			int pos = base + piece.left.size;
+			if (from < pos) {
+				PieceTable.copy(piece.left, base, from, to, dst);
+			}
+			int first = Math.max(from, pos);
+			int last = Math.min(to, pos + piece.length);
+			if (first < last) {
+				piece.getChars(first - pos, last - first, dst, first - from);
+			}
+			base = pos + piece.length;
+			piece = piece.right;
+		}
+	}
+
+	/**
+	 * Same as get(start, end - start): the characters are copied.
+	 */
+	@Override
+	public CharSequence subSequence(int start, int end) throws IndexOutOfBoundsException {
+		if (start > end) {
+			throw new IndexOutOfBoundsException();
+		}
+		return this.get(start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		return this.get(0, this.size());
+	}
+
+	@Override
+	public void add(char c) {
+		this.root = this.append(this.root, this.added.length(), 1);
+		this.added.append(c);
+	}
+
+	@Override
+	public void add(char c, int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		Piece left = this.split(this.root, pos);
+		Piece right = this.rest;
+		left = this.append(left, this.added.length(), 1);
+		this.added.append(c);
+		this.root = PieceTable.merge(left, right);
+	}
+
+	@Override
+	public void add(CharSequence s, int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (s.length() == 0) {
+			return;
+		}
+		Piece left = this.split(this.root, pos);
+		Piece right = this.rest;
+		left = this.append(left, this.added.length(), s.length());
+		this.added.append(s);
+		this.root = PieceTable.merge(left, right);
+	}
+
+	/**
+	 * Adds the length characters of the add buffer from start, which are about
+	 * to be appended to it, at the end of the pieces at tree. If the last piece
+	 * ends where they begin it is just made longer.
+	 *
+	 * @return the new root of tree
+	 */
+	private Piece append(Piece tree, int start, int length) {
+		if (tree != NULL_PIECE) {
+			Piece last = tree;
+			while (last.right != NULL_PIECE) {
+				last = last.right;
+			}
+			if (last.buffer == this.added && last.start + last.length == start) {
+				last.length += length;
+				for (Piece piece = tree; piece != NULL_PIECE; piece = piece.right) {
+					piece.size += length;
+				}
+				return tree;
+			}
+		}
+		return PieceTable.merge(tree, PieceTable.newPiece(this.added, start, length));
+	}
+
+	@Override
+	public char delete(int pos) throws IndexOutOfBoundsException {
+		char c = this.get(pos);
+		Piece left = this.split(this.root, pos);
+		this.split(this.rest, 1);
+		this.root = PieceTable.merge(left, this.rest);
+		return c;
+	}
+
+	/**
+	 * The table returned shares the buffers of this one.
+	 */
+	@Override
+	public PieceTable delete(int start, int length) throws IndexOutOfBoundsException {
+		if (start < 0 || length < 0 || length > this.size() - start) {
+			throw new IndexOutOfBoundsException();
+		}
+		Piece left = this.split(this.root, start);
+		Piece middle = this.split(this.rest, length);
+		this.root = PieceTable.merge(left, this.rest);
+		return new PieceTable(middle, this.added);
+	}
+
+	/**
+	 * The table returned shares the buffers of this one.
+	 */
+	@Override
+	public PieceTable split(int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		this.root = this.split(this.root, pos);
+		return new PieceTable(this.rest, this.added);
+	}
+
+	/**
+	 * Merges the piece trees in expected O(log P); the pieces of other keep
+	 * pointing into its buffers, so no text is copied.
+	 */
+	@Override
+	public void concatenate(EditSequence other) throws IllegalArgumentException {
+		if (other == this || !(other instanceof PieceTable)) {
+			throw new IllegalArgumentException();
+		}
+		PieceTable table = (PieceTable) other;
+		this.root = PieceTable.merge(this.root, table.root);
+		table.root = NULL_PIECE;
+	}
+
+	@Override
+	public int find(String s) {
+		return this.find(s, 0);
+	}
+
+	/**
+	 * Knuth-Morris-Pratt search over the pieces from pos, in
+	 * O(log P + (N - pos) + k), where k is the length of s.
+	 */
+	@Override
+	public int find(String s, int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		int length = s.length();
+		if (length == 0) {
+			return pos;
+		}
+		if (this.size() - pos < length) {
+			return -1;
+		}
+		int[] failure = EditTree.failureTable(s);
+		// the stack holds the pieces still to visit whose left subtrees are done
+		ArrayDeque<Piece> stack = new ArrayDeque<Piece>();
+		Piece current = this.root;
+		int offset = pos;
+		while (true) {
+			int start = current.left.size;
+			if (offset < start) {
+				stack.push(current);
+				current = current.left;
+			}
+			else if (offset >= start + current.length) {
+				offset -= start + current.length;
+				current = current.right;
+			}
+			else {
+				stack.push(current);
+				offset -= start;
+				break;
+			}
+		}
+		int matched = 0;
+		while (!stack.isEmpty()) {
+			Piece piece = stack.pop();
+			for (int i = piece.start + offset; i < piece.start + piece.length; i++, pos++) {
+				char c = piece.buffer.charAt(i);
+				while (matched > 0 && c != s.charAt(matched)) {
+					matched = failure[matched - 1];
+				}
+				if (c == s.charAt(matched)) {
+					matched++;
+					if (matched == length) {
+						return pos - length + 1;
+					}
+				}
+			}
+			offset = 0;
+			for (current = piece.right; current != NULL_PIECE; current = current.left) {
+				stack.push(current);
+			}
+		}
+		return -1;
+	}
+
+	private static Piece newPiece(CharSequence buffer, int start, int length) {
+		return new Piece(buffer, start, length, ThreadLocalRandom.current().nextInt());
+	}
+
+	/**
+	 * Splits the subtree at piece after its first pos characters, cutting the
+	 * piece that pos falls inside in two.
+	 *
+	 * @return the root of the first part; the root of the second is left in
+	 *         rest
+	 */
+	private Piece split(Piece piece, int pos) {
+		this.tail = NULL_PIECE;
+		Piece left = this.splitAt(piece, pos);
+		// the back of a cut piece has a priority of its own, so it goes in by
+		// a merge at the top rather than under some piece on the path
+		this.rest = PieceTable.merge(this.tail, this.rest);
+		this.tail = NULL_PIECE;
+		return left;
+	}
+
+	private Piece splitAt(Piece piece, int pos) {
+		if (piece == NULL_PIECE) {
+			this.rest = NULL_PIECE;
+			return NULL_PIECE;
+		}
+		int start = piece.left.size;
+		if (pos <= start) {
+			Piece left = this.splitAt(piece.left, pos);
+			piece.left = this.rest;
+			piece.updateSize();
+			this.rest = piece;
+			return left;
+		}
+		if (pos < start + piece.length) {
+			int cut = pos - start;
+			this.tail = PieceTable.newPiece(piece.buffer, piece.start + cut, piece.length - cut);
+			this.rest = piece.right;
+			piece.length = cut;
+			piece.right = NULL_PIECE;
+			piece.updateSize();
+			return piece;
+		}
+		piece.right = this.splitAt(piece.right, pos - start - piece.length);
+		piece.updateSize();
+		return piece;
+	}
+
+	/**
+	 *
+	 * @return the root of a treap of the pieces of the treap at a followed by
+	 *         those of the treap at b
+	 */
+	private static Piece merge(Piece a, Piece b) {
+		if (a == NULL_PIECE) {
+			return b;
+		}
+		if (b == NULL_PIECE) {
+			return a;
+		}
+		if (a.priority > b.priority) {
+			a.right = PieceTable.merge(a.right, b);
+			a.updateSize();
+			return a;
+		}
+		b.left = PieceTable.merge(a, b.left);
+		b.updateSize();
+		return b;
+	}
+}
@@ -0,0 +1,53 @@
+package editortrees;
+
+import java.util.stream.IntStream;
+
+// A range of the characters of an EditTree, as returned by subSequence. It
+// keeps only the tree, an offset and a length, and reads through to the tree.
+
+final class SubSequence implements CharSequence {
+
+	private final EditTree tree;
+	private final int offset;
+	private final int length;
+
+	SubSequence(EditTree tree, int offset, int length) {
+		this.tree = tree;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	@Override
+	public int length() {
+		return this.length;
+	}
+
+	@Override
+	public char charAt(int index) throws IndexOutOfBoundsException {
+		if (index < 0 || index >= this.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		return this.tree.charAt(this.offset + index);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) throws IndexOutOfBoundsException {
+		if (start < 0 || end > this.length || start > end) {
+			throw new IndexOutOfBoundsException();
+		}
+		return new SubSequence(this.tree, this.offset + start, end - start);
+	}
+
+	@Override
+	public IntStream chars() {
+		return this.tree.chars(this.offset, this.offset + this.length);
+	}
+
+	/**
+	 * Copies the characters of this range out of the tree, in O(length + log N).
+	 */
+	@Override
+	public String toString() {
+		return this.tree.get(this.offset, this.length);
+	}
+}
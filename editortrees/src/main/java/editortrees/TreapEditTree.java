@@ -0,0 +1,331 @@
+package editortrees;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ThreadLocalRandom;
+
+// An implicit treap with the operations of EditTree: a binary tree ordered by
+// position, with no keys stored, kept balanced by giving every node a random
+// priority and keeping the priorities in heap order. Every operation is a
+// split and a merge, in expected O(log N), and no rotation counts are kept.
+// split and merge recurse, but only as deep as the tree, which is expected to
+// be O(log N).
+
+public class TreapEditTree implements EditSequence {
+
+	static final TreapNode NULL_NODE = new TreapNode();
+
+	private TreapNode root;
+	private TreapNode rest; // the second half made by the last split(node, pos)
+
+	/**
+	 * Construct an empty tree
+	 */
+	public TreapEditTree() {
+		this.root = NULL_NODE;
+	}
+
+	/**
+	 * Builds a treap of the characters of s in O(k), without a single merge:
+	 * nodes are added in order and each one takes as its left subtree the
+	 * nodes on the right spine with lower priorities.
+	 *
+	 * @param s
+	 */
+	public TreapEditTree(CharSequence s) {
+		this.root = TreapEditTree.build(s);
+	}
+
+	private TreapEditTree(TreapNode root) {
+		this.root = root;
+	}
+
+	private static TreapNode build(CharSequence s) {
+		if (s.length() == 0) {
+			return NULL_NODE;
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		TreapNode[] spine = new TreapNode[s.length()];
+		int top = 0;
+		for (int i = 0; i < s.length(); i++) {
+			TreapNode node = new TreapNode(s.charAt(i), random.nextInt());
+			TreapNode popped = NULL_NODE;
+			while (top > 0 && spine[top - 1].priority < node.priority) {
+				// the right subtree of a node leaving the spine is complete
+				popped = spine[--top];
+				popped.updateSize();
+			}
+			node.left = popped;
+			if (top > 0) {
+				spine[top - 1].right = node;
+			}
+			spine[top++] = node;
+		}
+		TreapNode result = spine[0];
+		while (top > 0) {
+			spine[--top].updateSize();
+		}
+		return result;
+	}
+
+	@Override
+	public int size() {
+		return this.root.size;
+	}
+
+	@Override
+	public int length() {
+		return this.root.size;
+	}
+
+	@Override
+	public char get(int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos >= this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		TreapNode current = this.root;
+		while (true) {
+			int rank = current.left.size;
+			if (pos < rank) {
+				current = current.left;
+			}
+			else if (pos > rank) {
+				pos -= rank + 1;
+				current = current.right;
+			}
+			else {
+				return current.element;
+			}
+		}
+	}
+
+	@Override
+	public char charAt(int index) throws IndexOutOfBoundsException {
+		return this.get(index);
+	}
+
+	/**
+	 * Runs in O(length + log N).
+	 */
+	@Override
+	public String get(int pos, int length) throws IndexOutOfBoundsException {
+		if (pos < 0 || length < 0 || length > this.size() - pos) {
+			throw new IndexOutOfBoundsException();
+		}
+		char[] result = new char[length];
+		TreapEditTree.copy(this.root, 0, pos, pos + length, result);
+		return new String(result);
+	}
+
+	/**
+	 * Copies the characters from position from up to to that are in the
+	 * subtree at node, whose first character is at position base, into dst
+	 * starting at index 0 for position from.
+	 */
+	private static void copy(TreapNode node, int base, int from, int to, char[] dst) {
+		while (node != NULL_NODE && base < to && from < base + node.size) {
+			int pos = base + node.left.size;
+			if (from < pos) {
+				TreapEditTree.copy(node.left, base, from, to, dst);
+			}
+			if (pos >= from && pos < to) {
+				dst[pos - from] = node.element;
+			}
+			base = pos + 1;
+			node = node.right;
+		}
+	}
+
+	/**
+	 * Same as get(start, end - start): the characters are copied.
+	 */
+	@Override
+	public CharSequence subSequence(int start, int end) throws IndexOutOfBoundsException {
+		if (start > end) {
+			throw new IndexOutOfBoundsException();
+		}
+		return this.get(start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		return this.get(0, this.size());
+	}
+
+	@Override
+	public void add(char c) {
+		this.root = TreapEditTree.merge(this.root, TreapEditTree.newNode(c));
+	}
+
+	@Override
+	public void add(char c, int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		TreapNode left = this.split(this.root, pos);
+		this.root = TreapEditTree.merge(TreapEditTree.merge(left, TreapEditTree.newNode(c)), this.rest);
+	}
+
+	/**
+	 * Builds a treap from s in O(k) and merges it in, for O(k + log N) in all.
+	 */
+	@Override
+	public void add(CharSequence s, int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		TreapNode left = this.split(this.root, pos);
+		TreapNode right = this.rest;
+		this.root = TreapEditTree.merge(TreapEditTree.merge(left, TreapEditTree.build(s)), right);
+	}
+
+	@Override
+	public char delete(int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos >= this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		TreapNode left = this.split(this.root, pos);
+		TreapNode middle = this.split(this.rest, 1);
+		this.root = TreapEditTree.merge(left, this.rest);
+		return middle.element;
+	}
+
+	@Override
+	public TreapEditTree delete(int start, int length) throws IndexOutOfBoundsException {
+		if (start < 0 || length < 0 || length > this.size() - start) {
+			throw new IndexOutOfBoundsException();
+		}
+		TreapNode left = this.split(this.root, start);
+		TreapNode middle = this.split(this.rest, length);
+		this.root = TreapEditTree.merge(left, this.rest);
+		return new TreapEditTree(middle);
+	}
+
+	@Override
+	public TreapEditTree split(int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		this.root = this.split(this.root, pos);
+		return new TreapEditTree(this.rest);
+	}
+
+	@Override
+	public void concatenate(EditSequence other) throws IllegalArgumentException {
+		if (other == this || !(other instanceof TreapEditTree)) {
+			throw new IllegalArgumentException();
+		}
+		TreapEditTree tree = (TreapEditTree) other;
+		this.root = TreapEditTree.merge(this.root, tree.root);
+		tree.root = NULL_NODE;
+	}
+
+	@Override
+	public int find(String s) {
+		return this.find(s, 0);
+	}
+
+	/**
+	 * Knuth-Morris-Pratt search over an inorder walk from pos, in
+	 * O(log N + (N - pos) + k), where k is the length of s.
+	 */
+	@Override
+	public int find(String s, int pos) throws IndexOutOfBoundsException {
+		if (pos < 0 || pos > this.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+		int length = s.length();
+		if (length == 0) {
+			return pos;
+		}
+		if (this.size() - pos < length) {
+			return -1;
+		}
+		int[] failure = EditTree.failureTable(s);
+		// the stack holds the nodes still to visit whose left subtrees are done
+		ArrayDeque<TreapNode> stack = new ArrayDeque<TreapNode>();
+		TreapNode current = this.root;
+		int offset = pos;
+		while (current != NULL_NODE) {
+			int rank = current.left.size;
+			if (offset <= rank) {
+				stack.push(current);
+				if (offset == rank) {
+					break;
+				}
+				current = current.left;
+			}
+			else {
+				offset -= rank + 1;
+				current = current.right;
+			}
+		}
+		int matched = 0;
+		while (!stack.isEmpty()) {
+			TreapNode node = stack.pop();
+			char c = node.element;
+			while (matched > 0 && c != s.charAt(matched)) {
+				matched = failure[matched - 1];
+			}
+			if (c == s.charAt(matched)) {
+				matched++;
+				if (matched == length) {
+					return pos - length + 1;
+				}
+			}
+			pos++;
+			for (current = node.right; current != NULL_NODE; current = current.left) {
+				stack.push(current);
+			}
+		}
+		return -1;
+	}
+
+	private static TreapNode newNode(char c) {
+		return new TreapNode(c, ThreadLocalRandom.current().nextInt());
+	}
+
+	/**
+	 * Splits the subtree at node after its first pos characters.
+	 *
+	 * @return the root of the first part; the root of the second is left in
+	 *         rest
+	 */
+	private TreapNode split(TreapNode node, int pos) {
+		if (node == NULL_NODE) {
+			this.rest = NULL_NODE;
+			return NULL_NODE;
+		}
+		if (pos <= node.left.size) {
+			TreapNode left = this.split(node.left, pos);
+			node.left = this.rest;
+			node.updateSize();
+			this.rest = node;
+			return left;
+		}
+		node.right = this.split(node.right, pos - node.left.size - 1);
+		node.updateSize();
+		return node;
+	}
+
+	/**
+	 *
+	 * @return the root of a treap of the characters of the treap at a followed
+	 *         by those of the treap at b
+	 */
+	private static TreapNode merge(TreapNode a, TreapNode b) {
+		if (a == NULL_NODE) {
+			return b;
+		}
+		if (b == NULL_NODE) {
+			return a;
+		}
+		if (a.priority > b.priority) {
+			a.right = TreapEditTree.merge(a.right, b);
+			a.updateSize();
+			return a;
+		}
+		b.left = TreapEditTree.merge(a, b.left);
+		b.updateSize();
+		return b;
+	}
+}
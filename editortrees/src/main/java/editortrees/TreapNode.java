@@ -0,0 +1,34 @@
+package editortrees;
+
+// A node of a TreapEditTree: one character, a random priority that is never
+// less than those of the node's children, and the size of its subtree, which
+// gives its rank as left.size.
+
+final class TreapNode {
+
+	final char element;
+	final int priority;
+	TreapNode left, right; // subtrees
+	int size;              // number of nodes in this subtree
+
+	/**
+	 * Creates the empty tree, TreapEditTree.NULL_NODE.
+	 */
+	TreapNode() {
+		this.element = ' ';
+		this.priority = Integer.MIN_VALUE;
+		this.size = 0;
+	}
+
+	TreapNode(char element, int priority) {
+		this.element = element;
+		this.priority = priority;
+		this.left = TreapEditTree.NULL_NODE;
+		this.right = TreapEditTree.NULL_NODE;
+		this.size = 1;
+	}
+
+	void updateSize() {
+		this.size = this.left.size + 1 + this.right.size;
+	}
+}